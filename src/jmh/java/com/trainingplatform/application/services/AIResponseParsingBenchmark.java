@@ -0,0 +1,50 @@
+package com.trainingplatform.application.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trainingplatform.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonResponseExtractor.parseAIResponse on quiz-generation outputs, bare JSON and ```json fenced with prose
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIResponseParsingBenchmark {
+
+    @Param({"10", "40"})
+    private int questionCount;
+
+    @Param({"false", "true"})
+    private boolean fenced;
+
+    private JsonResponseExtractor extractor;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        extractor = new JsonResponseExtractor(new ObjectMapper());
+        content = BenchmarkData.aiQuizResponse(42, questionCount, fenced);
+    }
+
+    @Benchmark
+    public Map<String, Object> parse() {
+        return extractor.parseAIResponse(content);
+    }
+}
@@ -0,0 +1,77 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.benchmarks.BenchmarkData;
+import com.trainingplatform.core.entities.ManualQuiz;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-duplicate lookup of one generated question against a training's question bank:
+ * QuestionSimilarityIndex's LSH buckets versus comparing with every stored signature.
+ * Lives in the service package because the bank and signatures are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionSimilarityBenchmark {
+
+    @Param({"1000", "20000"})
+    private int bankSize;
+
+    private QuestionSimilarityIndex.Bank bank;
+    private List<long[]> stored;
+    private List<long[]> probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        bank = new QuestionSimilarityIndex.Bank();
+        stored = new ArrayList<>();
+        for (ManualQuiz.QuizQuestion question : BenchmarkData.manualQuestions(42, bankSize)) {
+            long[] signature = QuestionSimilarityIndex.signature(question.getQuestion());
+            bank.add(signature);
+            stored.add(signature);
+        }
+        probes = new ArrayList<>();
+        for (ManualQuiz.QuizQuestion question : BenchmarkData.manualQuestions(7, 256)) {
+            probes.add(QuestionSimilarityIndex.signature(question.getQuestion()));
+        }
+    }
+
+    @Benchmark
+    public boolean lshLookup() {
+        return bank.containsSimilar(nextProbe(), 0.6);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        long[] probe = nextProbe();
+        for (long[] signature : stored) {
+            if (QuestionSimilarityIndex.similarity(probe, signature) >= 0.6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] nextProbe() {
+        next = (next + 1) & 255;
+        return probes.get(next);
+    }
+}
@@ -0,0 +1,57 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.benchmarks.BenchmarkData;
+import com.trainingplatform.core.entities.ManualQuiz;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ManualQuizService.checkAnswer over a full quiz submission, mixing every correct-answer type.
+ * Lives in the service package because checkAnswer is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuizGradingBenchmark {
+
+    @Param({"15", "50"})
+    private int questionCount;
+
+    private ManualQuizService service;
+    private List<ManualQuiz.QuizQuestion> questions;
+    private List<Object> answers;
+
+    @Setup
+    public void setUp() {
+        // Grading does not touch the repositories
+        service = new ManualQuizService(null, null, null);
+        questions = BenchmarkData.manualQuestions(42, questionCount);
+        answers = BenchmarkData.manualAnswers(7, questions);
+    }
+
+    @Benchmark
+    public int gradeSubmission() {
+        int correct = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            if (service.checkAnswer(questions.get(i), answers.get(i))) {
+                correct++;
+            }
+        }
+        return correct;
+    }
+}
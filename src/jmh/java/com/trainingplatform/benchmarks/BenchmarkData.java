@@ -0,0 +1,266 @@
+package com.trainingplatform.benchmarks;
+
+import com.trainingplatform.core.entities.ManualQuiz;
+import com.trainingplatform.core.entities.RepProgress;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic, deterministic data for the JMH suites.
+ * Default sizes follow a large tenant journey: 12 modules, 6 sections and 2 quizzes per module, 15 questions per quiz.
+ */
+public final class BenchmarkData {
+
+    public static final int MODULES = 12;
+    public static final int SECTIONS_PER_MODULE = 6;
+    public static final int QUIZZES_PER_MODULE = 2;
+    public static final int QUESTIONS_PER_QUIZ = 15;
+
+    private BenchmarkData() {
+    }
+
+    public static TrainingJourneyEntity journey(long seed) {
+        return journey(seed, MODULES, SECTIONS_PER_MODULE, QUIZZES_PER_MODULE, QUESTIONS_PER_QUIZ);
+    }
+
+    public static TrainingJourneyEntity journey(long seed, int modules, int sectionsPerModule,
+                                                int quizzesPerModule, int questionsPerQuiz) {
+        Random random = new Random(seed);
+        TrainingJourneyEntity journey = new TrainingJourneyEntity();
+        journey.setId(objectId(random));
+        journey.setTitle("Customer Onboarding Excellence");
+        journey.setDescription(text(random, 40));
+        journey.setIndustry(objectId(random));
+        journey.setStatus("active");
+        journey.setCompanyId(objectId(random));
+        journey.setGigId(objectId(random));
+        journey.setCreatedAt(LocalDateTime.of(2025, 1, 15, 9, 30));
+        journey.setUpdatedAt(LocalDateTime.of(2025, 2, 1, 14, 0));
+        journey.setVersion(7L);
+
+        List<TrainingJourneyEntity.TrainingModuleEntity> moduleList = new ArrayList<>();
+        for (int m = 0; m < modules; m++) {
+            TrainingJourneyEntity.TrainingModuleEntity module = new TrainingJourneyEntity.TrainingModuleEntity();
+            module.set_id(objectId(random));
+            module.setTitle("Module " + (m + 1) + ": " + text(random, 4));
+            module.setDescription(text(random, 30));
+            module.setDuration(30 + random.nextInt(60));
+            module.setDifficulty(m < modules / 3 ? "beginner" : m < 2 * modules / 3 ? "intermediate" : "advanced");
+            module.setLearningObjectives(List.of(text(random, 8), text(random, 8), text(random, 8)));
+            module.setTopics(List.of(text(random, 2), text(random, 2)));
+            module.setOrder(m);
+
+            List<TrainingJourneyEntity.SectionEntity> sections = new ArrayList<>();
+            for (int s = 0; s < sectionsPerModule; s++) {
+                TrainingJourneyEntity.SectionEntity section = new TrainingJourneyEntity.SectionEntity();
+                section.set_id(objectId(random));
+                section.setTitle(text(random, 5));
+                section.setType(s % 3 == 0 ? "video" : "document");
+                section.setOrder(s);
+                section.setDuration(5 + random.nextInt(20));
+                TrainingJourneyEntity.SectionContent content = new TrainingJourneyEntity.SectionContent();
+                content.setText(text(random, 120));
+                TrainingJourneyEntity.SectionFile file = new TrainingJourneyEntity.SectionFile();
+                file.setId(objectId(random));
+                file.setName("material-" + m + "-" + s + ".pdf");
+                file.setType("pdf");
+                file.setUrl("https://res.cloudinary.com/demo/raw/upload/v1700000000/trainings/documents/" + objectId(random) + ".pdf");
+                file.setPublicId("trainings/documents/" + objectId(random));
+                file.setSize(250_000L + random.nextInt(4_000_000));
+                file.setMimeType("application/pdf");
+                content.setFile(file);
+                section.setContent(content);
+                sections.add(section);
+            }
+            module.setSections(sections);
+
+            List<TrainingJourneyEntity.QuizEntity> quizzes = new ArrayList<>();
+            for (int q = 0; q < quizzesPerModule; q++) {
+                TrainingJourneyEntity.QuizEntity quiz = new TrainingJourneyEntity.QuizEntity();
+                quiz.set_id(objectId(random));
+                quiz.setTitle("Quiz " + (q + 1));
+                quiz.setDescription(text(random, 12));
+                quiz.setPassingScore(70);
+                quiz.setTimeLimit(15);
+                quiz.setMaxAttempts(3);
+                quiz.setQuestions(questions(random, questionsPerQuiz));
+                quiz.setQuestionCount(questionsPerQuiz);
+                quizzes.add(quiz);
+            }
+            module.setQuizzes(quizzes);
+            moduleList.add(module);
+        }
+        journey.setModules(moduleList);
+
+        TrainingJourneyEntity.FinalExamEntity exam = new TrainingJourneyEntity.FinalExamEntity();
+        exam.set_id(objectId(random));
+        exam.setTitle("Final Exam");
+        exam.setPassingScore(75);
+        exam.setQuestions(questions(random, 20));
+        exam.setQuestionCount(20);
+        journey.setFinalExam(exam);
+
+        List<String> repIds = new ArrayList<>();
+        for (int r = 0; r < 200; r++) {
+            repIds.add(objectId(random));
+        }
+        journey.setEnrolledRepIds(repIds);
+        return journey;
+    }
+
+    /**
+     * Progress of one rep through a journey: a third of the modules finished, a third in progress
+     */
+    public static RepProgress repProgress(long seed, int modules, int sectionsPerModule, int quizzesPerModule) {
+        Random random = new Random(seed);
+        RepProgress progress = new RepProgress(objectId(random), objectId(random));
+        progress.setId(objectId(random));
+        progress.setModuleTotal(modules);
+        progress.setTimeSpent(random.nextInt(2_000));
+        progress.setEngagementScore(random.nextInt(101));
+        progress.setLastAccessed(LocalDateTime.of(2025, 2, 3, 10, 0));
+        progress.setCreatedAt(LocalDateTime.of(2025, 1, 20, 8, 0));
+        progress.setUpdatedAt(LocalDateTime.of(2025, 2, 3, 10, 0));
+
+        Map<String, RepProgress.ModuleProgress> moduleMap = new HashMap<>();
+        for (int m = 0; m < modules; m++) {
+            String status = m < modules / 3 ? "completed" : m < 2 * modules / 3 ? "in-progress" : "not-started";
+            RepProgress.ModuleProgress moduleProgress = new RepProgress.ModuleProgress(status);
+            moduleProgress.setProgress(status.equals("completed") ? 100 : status.equals("in-progress") ? random.nextInt(100) : 0);
+            moduleProgress.setTimeSpent(random.nextInt(120));
+
+            for (int s = 0; s < sectionsPerModule; s++) {
+                RepProgress.SectionProgress section = new RepProgress.SectionProgress(!status.equals("not-started") && random.nextBoolean());
+                section.setProgress(section.isCompleted() ? 100 : random.nextInt(100));
+                section.setTimeSpent(random.nextInt(30));
+                moduleProgress.getSections().put(objectId(random), section);
+            }
+            if (!status.equals("not-started")) {
+                for (int q = 0; q < quizzesPerModule; q++) {
+                    String quizId = objectId(random);
+                    RepProgress.QuizResult result = new RepProgress.QuizResult(quizId, 40 + random.nextInt(61), random.nextBoolean());
+                    result.setTotalQuestions(QUESTIONS_PER_QUIZ);
+                    result.setCorrectAnswers(random.nextInt(QUESTIONS_PER_QUIZ + 1));
+                    moduleProgress.getQuizz().put(quizId, result);
+                }
+            }
+            moduleMap.put(objectId(random), moduleProgress);
+        }
+        progress.setModules(moduleMap);
+        progress.updateCounters();
+        return progress;
+    }
+
+    /**
+     * Manual quiz questions covering every correct-answer type handled by the grader
+     */
+    public static List<ManualQuiz.QuizQuestion> manualQuestions(long seed, int count) {
+        Random random = new Random(seed);
+        List<ManualQuiz.QuizQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Object correctAnswer = switch (i % 4) {
+                case 0 -> random.nextInt(4);
+                case 1 -> random.nextBoolean();
+                case 2 -> text(random, 2);
+                default -> List.of(random.nextInt(4), 4 + random.nextInt(4));
+            };
+            questions.add(ManualQuiz.QuizQuestion.builder()
+                .id(objectId(random))
+                .question(text(random, 14) + "?")
+                .type(i % 4 == 1 ? "true-false" : "multiple-choice")
+                .correctAnswer(correctAnswer)
+                .points(10)
+                .orderIndex(i)
+                .build());
+        }
+        return questions;
+    }
+
+    /**
+     * User answers for manualQuestions, as they arrive from the JSON request body (strings and numbers)
+     */
+    public static List<Object> manualAnswers(long seed, List<ManualQuiz.QuizQuestion> questions) {
+        Random random = new Random(seed);
+        List<Object> answers = new ArrayList<>();
+        for (ManualQuiz.QuizQuestion question : questions) {
+            boolean correct = random.nextInt(10) < 7;
+            Object expected = question.getCorrectAnswer();
+            if (expected instanceof Integer) {
+                answers.add(correct ? expected.toString() : "9");
+            } else if (expected instanceof Boolean) {
+                answers.add(correct ? expected.toString() : String.valueOf(!(Boolean) expected));
+            } else if (expected instanceof List) {
+                answers.add(correct ? new ArrayList<>((List<?>) expected) : List.of(0));
+            } else {
+                answers.add(correct ? expected : "wrong answer");
+            }
+        }
+        return answers;
+    }
+
+    /**
+     * A chat completion content shaped like the quiz generation output, optionally wrapped in a ```json fence with prose
+     */
+    public static String aiQuizResponse(long seed, int questionCount, boolean fenced) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder("{\n  \"questions\": [\n");
+        for (int i = 0; i < questionCount; i++) {
+            if (i > 0) json.append(",\n");
+            json.append("    {\"question\": \"").append(text(random, 14)).append("?\", ")
+                .append("\"type\": \"multiple-choice\", ")
+                .append("\"options\": [\"").append(text(random, 5)).append("\", \"").append(text(random, 5))
+                .append("\", \"").append(text(random, 5)).append("\", \"").append(text(random, 5)).append("\"], ")
+                .append("\"correctAnswer\": ").append(random.nextInt(4)).append(", ")
+                .append("\"explanation\": \"").append(text(random, 25)).append("\", ")
+                .append("\"points\": 10}");
+        }
+        json.append("\n  ]\n}");
+        return fenced
+            ? "Here is the quiz based on the module content:\n\n```json\n" + json + "\n```\n\nLet me know if you need changes."
+            : json.toString();
+    }
+
+    public static List<TrainingJourneyEntity.QuizQuestion> questions(Random random, int count) {
+        List<TrainingJourneyEntity.QuizQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TrainingJourneyEntity.QuizQuestion question = new TrainingJourneyEntity.QuizQuestion();
+            question.set_id(objectId(random));
+            question.setQuestion(text(random, 14) + "?");
+            question.setType(i % 4 == 3 ? "true-false" : "multiple-choice");
+            question.setOptions(i % 4 == 3
+                ? List.of("True", "False")
+                : List.of(text(random, 5), text(random, 5), text(random, 5), text(random, 5)));
+            question.setCorrectAnswer(random.nextInt(i % 4 == 3 ? 2 : 4));
+            question.setExplanation(text(random, 25));
+            question.setPoints(10);
+            question.setOrderIndex(i);
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    public static String objectId(Random random) {
+        return new ObjectId(random.nextInt(Integer.MAX_VALUE), random.nextInt(1 << 24)).toHexString();
+    }
+
+    private static final String[] WORDS = {
+        "customer", "service", "call", "quality", "product", "escalation", "policy", "empathy",
+        "resolution", "account", "billing", "process", "compliance", "script", "handling", "review"
+    };
+
+    public static String text(Random random, int words) {
+        StringBuilder builder = new StringBuilder(words * 9);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
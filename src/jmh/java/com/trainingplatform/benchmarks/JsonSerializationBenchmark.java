@@ -0,0 +1,67 @@
+package com.trainingplatform.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trainingplatform.core.entities.RepProgress;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import com.trainingplatform.infrastructure.config.MongoConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of journey and progress responses with the application ObjectMapper.
+ * modules: 4 = small tenant, 12 = typical, 40 = largest onboarding programs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"4", "12", "40"})
+    private int modules;
+
+    private ObjectMapper mapper;
+    private TrainingJourneyEntity journey;
+    private RepProgress progress;
+    private byte[] journeyJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new MongoConfig().objectMapper(Jackson2ObjectMapperBuilder.json());
+        journey = BenchmarkData.journey(42, modules, BenchmarkData.SECTIONS_PER_MODULE,
+            BenchmarkData.QUIZZES_PER_MODULE, BenchmarkData.QUESTIONS_PER_QUIZ);
+        progress = BenchmarkData.repProgress(42, modules, BenchmarkData.SECTIONS_PER_MODULE, BenchmarkData.QUIZZES_PER_MODULE);
+        // Plain mapper for the input side: requests carry ids as strings, not {"$oid": ...}
+        journeyJson = Jackson2ObjectMapperBuilder.json().build().writeValueAsBytes(journey);
+    }
+
+    @Benchmark
+    public byte[] serializeJourney() throws IOException {
+        return mapper.writeValueAsBytes(journey);
+    }
+
+    @Benchmark
+    public byte[] serializeRepProgress() throws IOException {
+        return mapper.writeValueAsBytes(progress);
+    }
+
+    @Benchmark
+    public TrainingJourneyEntity deserializeJourney() throws IOException {
+        return mapper.readValue(journeyJson, TrainingJourneyEntity.class);
+    }
+}
@@ -0,0 +1,111 @@
+package com.trainingplatform.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import com.trainingplatform.infrastructure.config.MongoConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serialization of a full TrainingJourneyEntity response with the ObjectId-aware String serializer
+ * registered by MongoConfig, against the previous per-property-instance + regex implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectIdSerializationBenchmark {
+
+    private ObjectMapper current;
+    private ObjectMapper legacy;
+    private TrainingJourneyEntity journey;
+
+    @Setup
+    public void setUp() throws IOException {
+        current = new MongoConfig().objectMapper(Jackson2ObjectMapperBuilder.json());
+
+        legacy = Jackson2ObjectMapperBuilder.json().build();
+        legacy.registerModule(new SimpleModule("LegacyObjectIdStringModule")
+            .addSerializer(String.class, new LegacyObjectIdStringSerializer(null)));
+
+        journey = BenchmarkData.journey(42);
+
+        // Both serializers must produce the same document
+        if (!Arrays.equals(current.writeValueAsBytes(journey), legacy.writeValueAsBytes(journey))) {
+            throw new IllegalStateException("Current and legacy serializers produce different output");
+        }
+    }
+
+    @Benchmark
+    public byte[] currentSerializer() throws IOException {
+        return current.writeValueAsBytes(journey);
+    }
+
+    @Benchmark
+    public byte[] legacySerializer() throws IOException {
+        return legacy.writeValueAsBytes(journey);
+    }
+
+    /**
+     * The serializer as it was before: one instance per contextualization and a regex match per ID value
+     */
+    static class LegacyObjectIdStringSerializer extends JsonSerializer<String> implements ContextualSerializer {
+
+        private static final Pattern OBJECT_ID_PATTERN = Pattern.compile("^[0-9a-fA-F]{24}$");
+
+        private final String fieldName;
+
+        LegacyObjectIdStringSerializer(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) {
+            return new LegacyObjectIdStringSerializer(property != null ? property.getName() : null);
+        }
+
+        @Override
+        public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (value == null) {
+                gen.writeNull();
+                return;
+            }
+            boolean isIdField = fieldName != null && (
+                fieldName.equals("_id") ||
+                fieldName.equals("id") ||
+                fieldName.endsWith("Id") ||
+                fieldName.endsWith("Ids")
+            );
+            if (isIdField && OBJECT_ID_PATTERN.matcher(value).matches()) {
+                gen.writeStartObject();
+                gen.writeFieldName("$oid");
+                gen.writeString(value);
+                gen.writeEndObject();
+            } else {
+                gen.writeString(value);
+            }
+        }
+    }
+}
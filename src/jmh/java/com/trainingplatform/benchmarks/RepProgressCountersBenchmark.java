@@ -0,0 +1,44 @@
+package com.trainingplatform.benchmarks;
+
+import com.trainingplatform.core.entities.RepProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RepProgress.updateCounters(), called on every progress update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepProgressCountersBenchmark {
+
+    @Param({"4", "12", "40"})
+    private int modules;
+
+    private RepProgress progress;
+
+    @Setup
+    public void setUp() {
+        progress = BenchmarkData.repProgress(42, modules, BenchmarkData.SECTIONS_PER_MODULE, BenchmarkData.QUIZZES_PER_MODULE);
+    }
+
+    @Benchmark
+    public int updateCounters() {
+        progress.updateCounters();
+        return progress.getModuleFinished() + progress.getModuleInProgress() + progress.getModuleNotStarted();
+    }
+}
@@ -0,0 +1,85 @@
+package com.trainingplatform.application.services;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Who an outbound AI call is made for, used by AICallScheduler to order waiting calls.
+ *
+ * Set explicitly around background work; on a request thread without an explicit context the
+ * call is interactive and attributed to the X-Company-Id header. aiQuizExecutor copies the
+ * context of the submitting thread to its tasks.
+ */
+public record AICallContext(String companyId, Priority priority) {
+
+    public static final String COMPANY_HEADER = "X-Company-Id";
+    static final String SHARED_COMPANY = "shared";
+
+    public enum Priority {
+        /** A user is waiting for the result */
+        INTERACTIVE,
+        /** Jobs and pre-generation; only served when no interactive call is waiting */
+        BACKGROUND
+    }
+
+    private static final ThreadLocal<AICallContext> CURRENT = new ThreadLocal<>();
+
+    public AICallContext {
+        companyId = companyId == null || companyId.isBlank() ? SHARED_COMPANY : companyId;
+    }
+
+    public static AICallContext background(String companyId) {
+        return new AICallContext(companyId, Priority.BACKGROUND);
+    }
+
+    public static AICallContext current() {
+        AICallContext context = CURRENT.get();
+        if (context != null) {
+            return context;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        String companyId = attributes instanceof ServletRequestAttributes servletAttributes
+            ? servletAttributes.getRequest().getHeader(COMPANY_HEADER)
+            : null;
+        return new AICallContext(companyId, Priority.INTERACTIVE);
+    }
+
+    public static <T> T callWith(AICallContext context, Callable<T> work) throws Exception {
+        AICallContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return work.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runWith(AICallContext context, Runnable work) {
+        AICallContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            work.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * TaskDecorator for executors: run the task with the context of the submitting thread
+     */
+    public static Runnable propagate(Runnable task) {
+        AICallContext context = current();
+        return () -> runWith(context, task);
+    }
+
+    private static void restore(AICallContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.trainingplatform.application.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for outbound AI calls, shared by the whole application.
+ *
+ * Two token buckets mirror the provider limits: requests per minute and tokens per minute
+ * (prompt plus max completion tokens, which is what the provider reserves). Calls that cannot
+ * go out immediately wait in one queue ordered by priority class first, so interactive calls
+ * always pass background ones, then by fair queuing tags per companyId (equal weights, cost in
+ * tokens), so one company bulk-generating cannot starve the others within a class.
+ * Queue depth and wait times per class are published through AITelemetry.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AICallScheduler {
+
+    private final AITelemetry telemetry;
+
+    @Value("${app.ai.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.rate-limit.requests-per-minute:500}")
+    private int requestsPerMinute;
+
+    @Value("${app.ai.rate-limit.tokens-per-minute:200000}")
+    private int tokensPerMinute;
+
+    @Value("${app.ai.rate-limit.max-wait-ms:120000}")
+    private long maxWaitMs;
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private record Ticket(AICallContext.Priority priority, double tag, double finishTag, long sequence) {
+    }
+
+    private static final Comparator<Ticket> ORDER = Comparator
+        .comparing(Ticket::priority)
+        .thenComparingDouble(Ticket::tag)
+        .thenComparingLong(Ticket::sequence);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(ORDER);
+    private final Map<String, Double> lastFinishTags = new HashMap<>();
+    private final Map<AICallContext.Priority, ClassStats> stats = new EnumMap<>(AICallContext.Priority.class);
+    // Written under lock, read lock-free by the queue depth gauges
+    private final Map<AICallContext.Priority, AtomicInteger> queued = new EnumMap<>(AICallContext.Priority.class);
+    private double virtualTime;
+    private double maxFinishTag;
+    private long sequence;
+    private double requestLevel;
+    private double tokenLevel;
+    private long lastRefillNanos;
+
+    private static final class ClassStats {
+        long granted;
+        long rejected;
+        long totalWaitNanos;
+        long maxWaitNanos;
+    }
+
+    @PostConstruct
+    void fillBuckets() {
+        requestLevel = requestsPerMinute;
+        tokenLevel = tokensPerMinute;
+        lastRefillNanos = System.nanoTime();
+        for (AICallContext.Priority priority : AICallContext.Priority.values()) {
+            stats.put(priority, new ClassStats());
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(priority, depth);
+            telemetry.registerQueueDepth(priority, depth::get);
+        }
+    }
+
+    /**
+     * Block until the call may go out, for the company and priority of AICallContext.current()
+     *
+     * @param estimatedTokens prompt tokens plus requested max completion tokens
+     * @throws RuntimeException if no capacity was available within app.ai.rate-limit.max-wait-ms
+     */
+    public void acquire(int estimatedTokens) {
+        if (!enabled) {
+            return;
+        }
+
+        AICallContext context = AICallContext.current();
+        // A call larger than the bucket would never fit, it goes out once the bucket is full
+        long cost = Math.max(1, Math.min(estimatedTokens, tokensPerMinute));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+        lock.lock();
+        Ticket ticket = null;
+        try {
+            ticket = enqueue(context, cost);
+            while (true) {
+                refill();
+                if (waiting.peek() == ticket && requestLevel >= 1 && tokenLevel >= cost) {
+                    waiting.poll();
+                    queued.get(ticket.priority()).decrementAndGet();
+                    requestLevel -= 1;
+                    tokenLevel -= cost;
+                    advanceVirtualTime(ticket);
+                    recordGranted(ticket.priority(), System.nanoTime() - start);
+                    changed.signalAll();
+                    return;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    dequeue(ticket);
+                    stats.get(ticket.priority()).rejected++;
+                    telemetry.recordSchedulerWait(ticket.priority(), AITelemetry.REJECTED, System.nanoTime() - start);
+                    log.warn("AI call for company {} ({}) rejected after waiting {} ms, {} calls queued",
+                        context.companyId(), context.priority(), maxWaitMs, waiting.size());
+                    throw new RuntimeException("AI rate limit reached, please retry later");
+                }
+
+                // The head waits for the buckets to refill, the others for the head to leave
+                long wait = waiting.peek() == ticket ? Math.max(nanosUntilAvailable(cost), 1_000_000L) : remaining;
+                changed.awaitNanos(Math.min(wait, remaining));
+            }
+        } catch (InterruptedException e) {
+            // A ticket left behind would block the queue once it reaches the head
+            dequeue(ticket);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for AI rate limit");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start-time fair queuing: a company's next call is tagged after its previous one,
+     * so companies with many queued calls are interleaved with the others.
+     */
+    private Ticket enqueue(AICallContext context, long cost) {
+        String flow = context.priority() + ":" + context.companyId();
+        double startTag = Math.max(virtualTime, lastFinishTags.getOrDefault(flow, 0.0));
+        double finishTag = startTag + cost;
+        lastFinishTags.put(flow, finishTag);
+
+        Ticket ticket = new Ticket(context.priority(), startTag, finishTag, sequence++);
+        waiting.add(ticket);
+        queued.get(ticket.priority()).incrementAndGet();
+        return ticket;
+    }
+
+    /**
+     * The virtual time follows the start tag of the granted call, and jumps past every finish
+     * tag once the queue is empty. Flows whose finish tag it has reached would start at the
+     * virtual time anyway, so they are forgotten rather than kept for every company ever seen.
+     */
+    private void advanceVirtualTime(Ticket granted) {
+        maxFinishTag = Math.max(maxFinishTag, granted.finishTag());
+        virtualTime = waiting.isEmpty() ? maxFinishTag : Math.max(virtualTime, granted.tag());
+        lastFinishTags.values().removeIf(finishTag -> finishTag <= virtualTime);
+    }
+
+    private void dequeue(Ticket ticket) {
+        if (waiting.remove(ticket)) {
+            queued.get(ticket.priority()).decrementAndGet();
+            changed.signalAll();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRefillNanos;
+        lastRefillNanos = now;
+        requestLevel = Math.min(requestsPerMinute, requestLevel + (double) elapsed * requestsPerMinute / NANOS_PER_MINUTE);
+        tokenLevel = Math.min(tokensPerMinute, tokenLevel + (double) elapsed * tokensPerMinute / NANOS_PER_MINUTE);
+    }
+
+    private long nanosUntilAvailable(long cost) {
+        double requestWait = (1 - requestLevel) * NANOS_PER_MINUTE / requestsPerMinute;
+        double tokenWait = (cost - tokenLevel) * NANOS_PER_MINUTE / tokensPerMinute;
+        return (long) Math.max(0, Math.max(requestWait, tokenWait));
+    }
+
+    private void recordGranted(AICallContext.Priority priority, long waitNanos) {
+        ClassStats classStats = stats.get(priority);
+        classStats.granted++;
+        classStats.totalWaitNanos += waitNanos;
+        classStats.maxWaitNanos = Math.max(classStats.maxWaitNanos, waitNanos);
+        telemetry.recordSchedulerWait(priority, AITelemetry.GRANTED, waitNanos);
+    }
+
+    /**
+     * Queue depth, bucket levels and per priority class granted/rejected calls and wait times
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            refill();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("enabled", enabled);
+            snapshot.put("queueDepth", waiting.size());
+            snapshot.put("availableRequests", (long) requestLevel);
+            snapshot.put("availableTokens", (long) tokenLevel);
+
+            Map<String, Object> classes = new LinkedHashMap<>();
+            stats.forEach((priority, classStats) -> {
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("queued", queued.get(priority).get());
+                values.put("granted", classStats.granted);
+                values.put("rejected", classStats.rejected);
+                values.put("avgWaitMillis", classStats.granted == 0 ? 0
+                    : TimeUnit.NANOSECONDS.toMillis(classStats.totalWaitNanos / classStats.granted));
+                values.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(classStats.maxWaitNanos));
+                classes.put(priority.name().toLowerCase(), values);
+            });
+            snapshot.put("classes", classes);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.infrastructure.llm.LlmHttpException;
+import com.trainingplatform.infrastructure.llm.LlmProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Availability of the AI provider (app.ai.health), kept as a circuit breaker so request paths
+ * read it from memory instead of finding out with a call.
+ *
+ * CLOSED: calls go through. After failure-threshold consecutive upstream failures (network
+ * errors, 5xx) the breaker is OPEN: calls fail at once, for open-ms. It is then HALF_OPEN and
+ * lets a single trial call through, a real call or a background probe; its success closes the
+ * breaker, its failure opens it again. Errors of a request itself, such as 4xx or truncation,
+ * show the provider is up and count as successes.
+ *
+ * Each admitted call holds a Permit. Only the trial's permit decides the half-open state, and
+ * other calls only count while the breaker is still in the closed period they were admitted
+ * in, so late results of calls started before the breaker opened change nothing.
+ *
+ * The prober also checks the provider every probe-interval-ms while it is idle, so an outage
+ * is noticed before a user runs into it.
+ */
+@Component
+@Slf4j
+public class AIHealthMonitor {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Admission of one upstream call, returned by tryAcquire
+     */
+    public static final class Permit {
+        private final boolean trial;
+        private final long period;
+
+        private Permit(boolean trial, long period) {
+            this.trial = trial;
+            this.period = period;
+        }
+    }
+
+    private final LlmProvider llmProvider;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    @Value("${app.ai.health.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.ai.health.open-ms:30000}")
+    private long openMs;
+
+    @Value("${app.ai.health.probe-interval-ms:15000}")
+    private long probeIntervalMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+    // Incremented on every state change, stale permits are recognized by it
+    private long period;
+    private long lastCallAt;
+    private String lastError;
+
+    public AIHealthMonitor(LlmProvider llmProvider,
+                           @Qualifier("aiHealthScheduler") ThreadPoolTaskScheduler scheduler) {
+        this.llmProvider = llmProvider;
+        this.scheduler = scheduler;
+    }
+
+    @PostConstruct
+    void startProber() {
+        if (probeIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::probe, Duration.ofMillis(probeIntervalMs));
+        }
+    }
+
+    /**
+     * Whether AI calls can currently be made: the provider is configured and the breaker is not open
+     */
+    public boolean isAvailable() {
+        if (!llmProvider.isConfigured()) {
+            return false;
+        }
+        synchronized (this) {
+            return state != State.OPEN || System.currentTimeMillis() >= openUntil;
+        }
+    }
+
+    /**
+     * Permission for one upstream call; when given, report its outcome with {@link #record}
+     * or, if the call is not made after all, give it back with {@link #release}
+     *
+     * @return null if the breaker is open, or half open with its trial call running
+     */
+    public synchronized Permit tryAcquire() {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now >= openUntil) {
+            changeState(State.HALF_OPEN);
+            log.info("AI provider circuit half open, letting a trial call through");
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            return null;
+        }
+        boolean trial = state == State.HALF_OPEN;
+        trialInFlight |= trial;
+        lastCallAt = now;
+        return new Permit(trial, period);
+    }
+
+    /**
+     * Outcome of a call allowed by tryAcquire
+     *
+     * @param error what the call threw, null if it succeeded
+     */
+    public synchronized void record(Permit permit, Throwable error) {
+        if (error instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+            // Cancelled by the caller (e.g. timed out), says nothing about the provider
+            release(permit);
+            return;
+        }
+        boolean success = error == null || !isUpstreamFailure(error);
+        if (!success) {
+            lastError = error.getMessage();
+        }
+
+        if (permit.trial) {
+            trialInFlight = false;
+            if (success) {
+                log.info("AI provider is reachable again, circuit closed");
+                changeState(State.CLOSED);
+                consecutiveFailures = 0;
+            } else {
+                consecutiveFailures++;
+                open();
+            }
+            return;
+        }
+        if (state != State.CLOSED || permit.period != period) {
+            // Admitted before the breaker last changed state
+            return;
+        }
+        if (success) {
+            consecutiveFailures = 0;
+            return;
+        }
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Give back a permit whose call was not made
+     */
+    public synchronized void release(Permit permit) {
+        if (permit.trial && permit.period == period) {
+            trialInFlight = false;
+        }
+    }
+
+    private void open() {
+        changeState(State.OPEN);
+        openUntil = System.currentTimeMillis() + openMs;
+        log.warn("AI provider circuit open for {} ms after {} consecutive failures, last: {}",
+            openMs, consecutiveFailures, lastError);
+    }
+
+    private void changeState(State next) {
+        state = next;
+        period++;
+    }
+
+    /**
+     * Check the provider if no call did recently, or try the half-open trial
+     */
+    void probe() {
+        if (!llmProvider.isConfigured()) {
+            return;
+        }
+        synchronized (this) {
+            boolean idle = System.currentTimeMillis() - lastCallAt >= probeIntervalMs;
+            if (state == State.CLOSED && !idle) {
+                return;
+            }
+        }
+        Permit permit = tryAcquire();
+        if (permit == null) {
+            return;
+        }
+        try {
+            llmProvider.probe();
+            record(permit, null);
+        } catch (Exception e) {
+            record(permit, e);
+        }
+    }
+
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof LlmHttpException http) {
+            return http.isServerError();
+        }
+        return error instanceof IOException;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("configured", llmProvider.isConfigured());
+        snapshot.put("state", state.name());
+        snapshot.put("consecutiveFailures", consecutiveFailures);
+        if (state == State.OPEN) {
+            snapshot.put("retryInMillis", Math.max(0, openUntil - System.currentTimeMillis()));
+        }
+        snapshot.put("lastError", lastError);
+        return snapshot;
+    }
+}
@@ -0,0 +1,301 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.AIJob;
+import com.trainingplatform.core.entities.ManualTraining;
+import com.trainingplatform.infrastructure.repositories.AIJobRepository;
+import com.trainingplatform.infrastructure.repositories.ManualTrainingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs AI pipelines as persisted background jobs.
+ *
+ * A job is saved as queued and its id returned immediately; a worker from the bounded
+ * aiJobExecutor runs it and records every step in ai_jobs. Progress is pushed to SSE
+ * subscribers as it happens, so clients can either poll or stream.
+ *
+ * Several instances share ai_jobs, so each job records the instance that owns it and a
+ * heartbeat the owner refreshes while holding the job. A queued or running job is only failed
+ * as interrupted when its heartbeat is stale, or at startup when it was left by an earlier run
+ * of this same instance (a stable instance-id, e.g. the host name).
+ */
+@Service
+@Slf4j
+public class AIJobService {
+
+    public static final String TYPE_ORGANIZE_TRAINING = "organize-training";
+
+    private final AIJobRepository jobRepository;
+    private final AIService aiService;
+    private final ManualTrainingRepository trainingRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final MongoTemplate mongoTemplate;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    // Jobs of this instance that are queued or running, whose heartbeat is refreshed
+    private final Set<String> heldJobIds = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.ai.jobs.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${app.ai.jobs.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    @Value("${app.ai.jobs.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    private final String instanceId;
+
+    public AIJobService(AIJobRepository jobRepository, AIService aiService, ManualTrainingRepository trainingRepository,
+                        @Qualifier("aiJobExecutor") ThreadPoolTaskExecutor executor, MongoTemplate mongoTemplate,
+                        @Qualifier("aiJobScheduler") ThreadPoolTaskScheduler scheduler,
+                        @Value("${app.ai.jobs.instance-id:}") String instanceId) {
+        this.jobRepository = jobRepository;
+        this.aiService = aiService;
+        this.trainingRepository = trainingRepository;
+        this.executor = executor;
+        this.mongoTemplate = mongoTemplate;
+        this.scheduler = scheduler;
+        this.instanceId = instanceId == null || instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+    }
+
+    /**
+     * Fail the jobs an earlier run of this instance left queued or running, then keep the
+     * heartbeats of this instance's jobs fresh and fail the jobs of instances that stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        failJobs(Criteria.where("ownerId").is(instanceId), "Interrupted by a server restart");
+        failStaleJobs();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatMs));
+    }
+
+    private void heartbeat() {
+        try {
+            if (!heldJobIds.isEmpty()) {
+                mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(heldJobIds).and("ownerId").is(instanceId)),
+                    new Update().set("heartbeatAt", LocalDateTime.now()), AIJob.class);
+            }
+            failStaleJobs();
+        } catch (Exception e) {
+            // Retried on the next beat; the scheduler would stop on an exception
+            log.warn("AI job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void failStaleJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+        // Jobs created before heartbeats existed are judged by their last update
+        failJobs(new Criteria().orOperator(
+            Criteria.where("heartbeatAt").lt(cutoff),
+            Criteria.where("heartbeatAt").exists(false).and("updatedAt").lt(cutoff)),
+            "Interrupted: the server running the job stopped");
+    }
+
+    /**
+     * Fail the queued or running jobs matching owner. A single conditional update, so a job
+     * finishing at the same moment, or handled by another instance, is left alone.
+     */
+    private void failJobs(Criteria owner, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        long failed = mongoTemplate.updateMulti(
+            Query.query(new Criteria().andOperator(Criteria.where("status").in("queued", "running"), owner)),
+            new Update()
+                .set("status", "failed")
+                .set("error", error)
+                .set("finishedAt", now)
+                .set("updatedAt", now),
+            AIJob.class).getModifiedCount();
+        if (failed > 0) {
+            log.warn("Marked {} interrupted AI jobs as failed ({})", failed, error);
+        }
+    }
+
+    /**
+     * Queue the organization of a training's content (modules, then optional quizzes and final exam)
+     *
+     * @return the queued job, or a failed job if the worker queue is full
+     */
+    public AIJob submitOrganizeTraining(String trainingId, List<AIService.FileInfo> files, String organizationInstructions,
+                                        boolean generateModuleQuizzes, boolean generateFinalExam) {
+        LocalDateTime now = LocalDateTime.now();
+        AIJob job = jobRepository.save(AIJob.builder()
+            .id(UUID.randomUUID().toString())
+            .type(TYPE_ORGANIZE_TRAINING)
+            .trainingId(trainingId)
+            .status("queued")
+            .progress(0)
+            .ownerId(instanceId)
+            .heartbeatAt(now)
+            .createdAt(now)
+            .updatedAt(now)
+            .build());
+
+        try {
+            heldJobIds.add(job.getId());
+            executor.execute(() -> runOrganizeTraining(job, files, organizationInstructions,
+                generateModuleQuizzes, generateFinalExam));
+            log.info("Queued AI job {} ({}) for training {}", job.getId(), job.getType(), trainingId);
+        } catch (TaskRejectedException e) {
+            log.warn("AI job queue is full, rejecting job {} for training {}", job.getId(), trainingId);
+            finish(job, "failed", "Too many AI jobs in progress, please retry later");
+        }
+        return job;
+    }
+
+    public Optional<AIJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    public List<AIJob> getJobsForTraining(String trainingId) {
+        return jobRepository.findByTrainingIdOrderByCreatedAtDesc(trainingId);
+    }
+
+    /**
+     * Subscribe to a job's progress. The current state is sent immediately; the stream
+     * completes once the job has succeeded or failed.
+     */
+    public SseEmitter subscribe(AIJob job) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        if (job.isFinished()) {
+            send(emitter, job);
+            emitter.complete();
+            return emitter;
+        }
+
+        List<SseEmitter> jobEmitters = emitters.computeIfAbsent(job.getId(), id -> new CopyOnWriteArrayList<>());
+        jobEmitters.add(emitter);
+        emitter.onCompletion(() -> jobEmitters.remove(emitter));
+        emitter.onTimeout(() -> jobEmitters.remove(emitter));
+        emitter.onError(e -> jobEmitters.remove(emitter));
+
+        // Re-read after registering, so a job finishing in between is not missed
+        AIJob current = jobRepository.findById(job.getId()).orElse(job);
+        send(emitter, current);
+        if (current.isFinished()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void runOrganizeTraining(AIJob job, List<AIService.FileInfo> files, String organizationInstructions,
+                                     boolean generateModuleQuizzes, boolean generateFinalExam) {
+        job.setStatus("running");
+        job.setStartedAt(LocalDateTime.now());
+        update(job);
+
+        try {
+            // Jobs yield to interactive AI calls and share capacity fairly with other companies
+            String companyId = trainingRepository.findById(job.getTrainingId())
+                .map(ManualTraining::getCompanyId)
+                .orElse(null);
+            AICallContext.callWith(AICallContext.background(companyId), () -> {
+                aiService.organizeTrainingContent(job.getTrainingId(), files, organizationInstructions,
+                    generateModuleQuizzes, generateFinalExam,
+                    (step, progress, message) -> step(job, step, progress, message));
+                return null;
+            });
+            finish(job, "succeeded", null);
+        } catch (Exception e) {
+            log.error("AI job {} failed: {}", job.getId(), e.getMessage(), e);
+            finish(job, "failed", e.getMessage());
+        }
+    }
+
+    private void step(AIJob job, String step, int progress, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        List<AIJob.JobStep> steps = job.getSteps();
+        AIJob.JobStep last = steps.isEmpty() ? null : steps.get(steps.size() - 1);
+
+        if (last != null && last.getName().equals(step)) {
+            last.setMessage(message);
+        } else {
+            if (last != null && "running".equals(last.getStatus())) {
+                last.setStatus("succeeded");
+                last.setFinishedAt(now);
+            }
+            steps.add(AIJob.JobStep.builder()
+                .name(step)
+                .status("running")
+                .message(message)
+                .startedAt(now)
+                .build());
+        }
+
+        job.setCurrentStep(step);
+        job.setProgress(progress);
+        update(job);
+    }
+
+    private void finish(AIJob job, String status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        List<AIJob.JobStep> steps = job.getSteps();
+        if (!steps.isEmpty() && "running".equals(steps.get(steps.size() - 1).getStatus())) {
+            AIJob.JobStep last = steps.get(steps.size() - 1);
+            last.setStatus("succeeded".equals(status) ? "succeeded" : "failed");
+            last.setFinishedAt(now);
+        }
+
+        job.setStatus(status);
+        job.setError(error);
+        if ("succeeded".equals(status)) {
+            job.setProgress(100);
+        }
+        job.setFinishedAt(now);
+        update(job);
+        heldJobIds.remove(job.getId());
+
+        List<SseEmitter> jobEmitters = emitters.remove(job.getId());
+        if (jobEmitters != null) {
+            jobEmitters.forEach(SseEmitter::complete);
+        }
+        log.info("AI job {} {}", job.getId(), status);
+    }
+
+    private void update(AIJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        job.setHeartbeatAt(job.getUpdatedAt());
+        jobRepository.save(job);
+
+        List<SseEmitter> jobEmitters = emitters.get(job.getId());
+        if (jobEmitters != null) {
+            jobEmitters.forEach(emitter -> send(emitter, job));
+        }
+    }
+
+    private void send(SseEmitter emitter, AIJob job) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(job.isFinished() ? job.getStatus() : "progress")
+                .data(job));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks remove it
+            emitter.completeWithError(e);
+        }
+    }
+}
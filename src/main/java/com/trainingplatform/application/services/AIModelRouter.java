@@ -0,0 +1,93 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.infrastructure.llm.LlmProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the models an AI operation is sent to, in the order they are tried.
+ *
+ * The route of the operation comes from app.ai.routing: the company's own route if it has one,
+ * else the shared one, else the provider's configured model alone. With a latency budget, the
+ * first model whose recent p95 latency for the operation (AITelemetry route timers) is within
+ * it goes first, or the fastest one when none is; a model without recent calls counts as
+ * within budget, so a slow model is tried again once its latencies have aged out.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AIModelRouter {
+
+    private final AIRoutingProperties properties;
+    private final AITelemetry telemetry;
+    private final LlmProvider llmProvider;
+
+    /**
+     * @return the models to try for the operation, for the company of AICallContext.current(), never empty
+     */
+    public List<String> route(String operation) {
+        AIRoutingProperties.Route route = routeFor(AICallContext.current().companyId(), operation);
+        List<String> models = configuredModels(route);
+        if (route == null || route.getLatencyBudgetMs() <= 0 || models.size() == 1) {
+            return models;
+        }
+
+        int chosen = -1;
+        double fastest = Double.MAX_VALUE;
+        int fastestIndex = 0;
+        for (int i = 0; i < models.size(); i++) {
+            double p95 = telemetry.recentP95Millis(operation, models.get(i));
+            if (Double.isNaN(p95) || p95 <= route.getLatencyBudgetMs()) {
+                chosen = i;
+                break;
+            }
+            if (p95 < fastest) {
+                fastest = p95;
+                fastestIndex = i;
+            }
+        }
+        if (chosen < 0) {
+            chosen = fastestIndex;
+        }
+        if (chosen == 0) {
+            return models;
+        }
+
+        log.debug("Routing {} to {}, preferred models are above {} ms p95", operation, models.get(chosen),
+            route.getLatencyBudgetMs());
+        List<String> ordered = new ArrayList<>(models.size());
+        ordered.add(models.get(chosen));
+        for (int i = 0; i < models.size(); i++) {
+            if (i != chosen) {
+                ordered.add(models.get(i));
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * The models configured for the operation, in configuration order whatever their recent
+     * latency, for the company of AICallContext.current(). Stable as long as the configuration
+     * is, so it identifies the request in cache and single-flight keys.
+     */
+    public List<String> configuredRoute(String operation) {
+        return configuredModels(routeFor(AICallContext.current().companyId(), operation));
+    }
+
+    private List<String> configuredModels(AIRoutingProperties.Route route) {
+        return route == null || route.getModels().isEmpty() ? List.of(llmProvider.model()) : route.getModels();
+    }
+
+    private AIRoutingProperties.Route routeFor(String companyId, String operation) {
+        Map<String, AIRoutingProperties.Route> companyRoutes = properties.getCompanies().get(companyId);
+        if (companyRoutes != null && companyRoutes.containsKey(operation)) {
+            return companyRoutes.get(operation);
+        }
+        return properties.getRoutes().get(operation);
+    }
+}
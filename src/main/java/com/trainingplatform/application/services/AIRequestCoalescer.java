@@ -0,0 +1,131 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.infrastructure.http.CancellableTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Single-flight for AI calls: concurrent calls with the same fingerprint (the response cache key)
+ * share one upstream call instead of each paying for it, e.g. on a double-clicked "generate" or
+ * several tabs retrying at once.
+ *
+ * The shared call runs on aiCallExecutor, so no single caller owns it. A caller interrupted while
+ * waiting leaves the flight; the upstream call is only cancelled when the last waiter has left.
+ */
+@Component
+@Slf4j
+public class AIRequestCoalescer {
+
+    private final ThreadPoolTaskExecutor aiCallExecutor;
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private static final class Flight {
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        volatile Future<?> task;
+        // Only changed inside inFlight.compute for the flight's key
+        int waiters;
+    }
+
+    public AIRequestCoalescer(@Qualifier("aiCallExecutor") ThreadPoolTaskExecutor aiCallExecutor) {
+        this.aiCallExecutor = aiCallExecutor;
+    }
+
+    /**
+     * Run call, or wait for the identical call already in flight
+     *
+     * @return a copy of the shared result, so callers may modify it freely
+     */
+    public Map<String, Object> execute(String key, Callable<Map<String, Object>> call) throws Exception {
+        CompletableFuture<Map<String, Object>> response = submit(key, call);
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            response.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for AI response");
+        }
+    }
+
+    /**
+     * Start call, or join the identical call already in flight, without waiting for it.
+     * Cancelling the returned future leaves the flight.
+     *
+     * @return a future completing with a copy of the shared result
+     */
+    public CompletableFuture<Map<String, Object>> submit(String key, Callable<Map<String, Object>> call) {
+        Flight[] started = new Flight[1];
+        Flight flight = inFlight.compute(key, (k, existing) -> {
+            Flight joined = existing != null ? existing : (started[0] = new Flight());
+            joined.waiters++;
+            return joined;
+        });
+
+        if (started[0] != null) {
+            CancellableTask<Void> task = new CancellableTask<>(() -> run(key, flight, call));
+            aiCallExecutor.execute(task);
+            flight.task = task;
+            if (flight.result.isCancelled()) {
+                // Every waiter left before the task was recorded
+                flight.task.cancel(true);
+            }
+        } else {
+            log.info("Joining in-flight AI call {}", key);
+        }
+
+        CompletableFuture<Map<String, Object>> response = flight.result.thenApply(AIResponseCacheService::copy);
+        response.whenComplete((result, error) -> {
+            if (response.isCancelled()) {
+                leave(key, flight);
+            }
+        });
+        return response;
+    }
+
+    private void run(String key, Flight flight, Callable<Map<String, Object>> call) {
+        try {
+            Map<String, Object> response = call.call();
+            // Removed first: a caller arriving now finds the response in the cache instead
+            inFlight.remove(key, flight);
+            flight.result.complete(response);
+        } catch (Exception e) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(e);
+        }
+    }
+
+    private void leave(String key, Flight flight) {
+        boolean[] last = new boolean[1];
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight) {
+                return current;
+            }
+            last[0] = --current.waiters == 0;
+            return last[0] ? null : current;
+        });
+
+        if (last[0]) {
+            log.info("All callers left in-flight AI call {}, cancelling it", key);
+            flight.result.cancel(false);
+            Future<?> task = flight.task;
+            if (task != null) {
+                // Cancels the HTTP call, or interrupts the wait for the rate limiter
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.AIResponseCacheEntry;
+import com.trainingplatform.infrastructure.repositories.AIResponseCacheRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content-addressed cache for parsed OpenAI responses.
+ *
+ * Entries are keyed by the SHA-256 of everything that determines the output (provider, operation
+ * and its configured models, temperature, max tokens, system and normalized user prompt).
+ * A bounded in-memory LRU sits in front of the ai_response_cache collection; both tiers expire
+ * entries after app.ai.cache.ttl-hours.
+ * Cache failures are logged and treated as misses, they never fail the AI call itself.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AIResponseCacheService {
+
+    private final AIResponseCacheRepository cacheRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${app.ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${app.ai.cache.memory-max-entries:500}")
+    private int memoryMaxEntries;
+
+    private final Map<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MemoryEntry> eldest) {
+            return size() > memoryMaxEntries;
+        }
+    };
+
+    private record MemoryEntry(Map<String, Object> response, long expiresAtMillis) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // Auto index creation is off, so the TTL index declared on the entity is created here
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        resolver.resolveIndexFor(AIResponseCacheEntry.class)
+            .forEach(index -> mongoTemplate.indexOps(AIResponseCacheEntry.class).ensureIndex(index));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key for one chat completion request. Whitespace in the prompt is normalized,
+     * so prompts that only differ in spacing or line endings share an entry.
+     *
+     * @param route the provider, the operation and the models it may be answered by, whichever of them answers
+     */
+    public static String keyFor(String route, double temperature, int maxTokens, String systemPrompt, String prompt) {
+        String normalizedPrompt = prompt == null ? "" : prompt.strip().replaceAll("\\s+", " ");
+        String material = route + '\n' + temperature + '\n' + maxTokens + '\n' + systemPrompt + '\n' + normalizedPrompt;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return a copy of the cached response, so callers may modify it freely
+     */
+    public Optional<Map<String, Object>> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            MemoryEntry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > now) {
+                    log.debug("AI cache hit (memory) for {}", key);
+                    return Optional.of(copy(entry.response()));
+                }
+                memory.remove(key);
+            }
+        }
+
+        try {
+            Optional<AIResponseCacheEntry> stored = cacheRepository.findById(key)
+                // The TTL monitor only runs every minute
+                .filter(entry -> entry.getExpiresAt() != null && entry.getExpiresAt().getTime() > now);
+            if (stored.isPresent()) {
+                log.debug("AI cache hit (mongo) for {}", key);
+                remember(key, stored.get().getResponse(), stored.get().getExpiresAt().getTime());
+                return Optional.of(copy(stored.get().getResponse()));
+            }
+        } catch (Exception e) {
+            log.warn("AI cache lookup failed for {}: {}", key, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Store a response in both tiers, replacing any previous entry for the key
+     *
+     * @param model the model that produced the response
+     */
+    public void put(String key, String model, int maxTokens, Map<String, Object> response) {
+        if (!enabled || response == null) {
+            return;
+        }
+
+        Date now = new Date();
+        Date expiresAt = new Date(now.getTime() + Duration.ofHours(ttlHours).toMillis());
+        remember(key, copy(response), expiresAt.getTime());
+
+        try {
+            cacheRepository.save(AIResponseCacheEntry.builder()
+                .id(key)
+                .model(model)
+                .maxTokens(maxTokens)
+                .response(response)
+                .createdAt(now)
+                .expiresAt(expiresAt)
+                .build());
+        } catch (Exception e) {
+            log.warn("AI cache write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void remember(String key, Map<String, Object> response, long expiresAtMillis) {
+        synchronized (memory) {
+            memory.put(key, new MemoryEntry(response, expiresAtMillis));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> copy(Map<String, Object> response) {
+        return (Map<String, Object>) deepCopy(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object deepCopy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(String.valueOf(k), deepCopy(v)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(item -> copy.add(deepCopy(item)));
+            return copy;
+        }
+        // Strings, numbers and booleans are immutable
+        return value;
+    }
+}
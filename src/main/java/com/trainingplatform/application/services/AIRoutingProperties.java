@@ -0,0 +1,35 @@
+package com.trainingplatform.application.services;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model routing table under app.ai.routing, read by AIModelRouter.
+ *
+ * routes maps an AI operation (metadata, organize, quiz, final-exam, ...) to its models, the
+ * first one preferred and the others used as fallbacks. companies overrides routes per
+ * company id; write ids in brackets, e.g. "[64f0c2ab]", so they are bound unchanged.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.routing")
+public class AIRoutingProperties {
+
+    private Map<String, Route> routes = new HashMap<>();
+
+    private Map<String, Map<String, Route>> companies = new HashMap<>();
+
+    @Data
+    public static class Route {
+        /** Preferred model first; empty for the provider's configured model */
+        private List<String> models = new ArrayList<>();
+        /** Skip a model whose recent p95 latency for the operation is above this, 0 for never */
+        private long latencyBudgetMs;
+    }
+}
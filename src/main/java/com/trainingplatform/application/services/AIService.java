@@ -1,13 +1,28 @@
 package com.trainingplatform.application.services;
 
+import com.trainingplatform.core.entities.ManualQuiz;
 import com.trainingplatform.core.entities.ManualTraining;
 import com.trainingplatform.core.entities.ManualTrainingModule;
 import com.trainingplatform.infrastructure.repositories.ManualTrainingRepository;
 import com.trainingplatform.infrastructure.repositories.ManualTrainingModuleRepository;
+import com.trainingplatform.infrastructure.http.CancellableTask;
+import com.trainingplatform.infrastructure.llm.LlmProvider;
+import com.trainingplatform.infrastructure.llm.LlmRequest;
+import com.trainingplatform.infrastructure.llm.LlmResponse;
+import com.trainingplatform.infrastructure.llm.LlmTruncatedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
@@ -15,18 +30,27 @@ import org.apache.poi.xslf.usermodel.XSLFSlide;
 import org.apache.poi.xslf.usermodel.XSLFShape;
 import org.apache.poi.xslf.usermodel.XSLFTextShape;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -36,40 +60,105 @@ public class AIService {
     private final ManualTrainingRepository manualTrainingRepository;
     private final ManualTrainingModuleRepository manualTrainingModuleRepository;
     private final com.trainingplatform.infrastructure.repositories.ManualQuizRepository manualQuizRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final AIResponseCacheService responseCache;
+    // Resolved by parameter name among the executors declared in AsyncConfig
+    private final ThreadPoolTaskExecutor aiQuizExecutor;
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final TokenChunker tokenChunker;
+    private final AICallScheduler callScheduler;
+    private final LlmProvider llmProvider;
+    private final JsonResponseExtractor jsonExtractor;
+    private final AIRequestCoalescer requestCoalescer;
+    private final AITelemetry telemetry;
+    private final QuestionSimilarityIndex questionIndex;
+    private final AIModelRouter modelRouter;
+    private final AIHealthMonitor healthMonitor;
+    private final ThreadPoolTaskExecutor fileDownloadExecutor;
+    private final ThreadPoolTaskExecutor fileParseExecutor;
+    private final ExtractedTextStore extractedTextStore;
 
-    @Value("${app.ai.openai.api-key:}")
-    private String openaiApiKey;
+    @Value("${app.ai.quiz-generation.timeout-seconds:120}")
+    private long quizTimeoutSeconds;
 
-    @Value("${app.ai.openai.model:gpt-4o-mini}")
-    private String openaiModel;
+    @Value("${app.ai.quiz-generation.batching.enabled:true}")
+    private boolean quizBatchingEnabled;
 
-    private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    @Value("${app.ai.quiz-generation.batching.prompt-budget-tokens:3000}")
+    private int quizBatchPromptBudgetTokens;
 
-    public boolean checkAIAvailability() {
-        if (openaiApiKey == null || openaiApiKey.isEmpty()) {
-            log.warn("OpenAI API key is not configured");
-            return false;
-        }
+    @Value("${app.ai.quiz-generation.batching.completion-budget-tokens:6000}")
+    private int quizBatchCompletionBudgetTokens;
 
-        try {
-            // Simple test to check if we can connect to OpenAI
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(openaiApiKey);
+    @Value("${app.ai.quiz-generation.batching.max-modules:6}")
+    private int quizBatchMaxModules;
 
-            // We just check if the API key is valid
-            return true;
-        } catch (Exception e) {
-            log.error("Failed to connect to OpenAI: {}", e.getMessage());
+    @Value("${app.ai.quiz-generation.final-exam.questions-per-request:8}")
+    private int examQuestionsPerRequest;
+
+    @Value("${app.ai.content.organization-budget-tokens:4000}")
+    private int organizationBudgetTokens;
+
+    @Value("${app.ai.content.analysis-budget-tokens:3000}")
+    private int analysisBudgetTokens;
+
+    @Value("${app.ai.content.chunk-tokens:2000}")
+    private int chunkTokens;
+
+    @Value("${app.ai.content.file-timeout-seconds:60}")
+    private long fileTimeoutSeconds;
+
+    @Value("${app.ai.content.max-download-size:500MB}")
+    private DataSize maxDownloadSize;
+
+    private record AIRequest(String prompt, int maxTokens) {
+    }
+
+    /** One module of a batched quiz request, with its rendered prompt block */
+    private record QuizBatchEntry(ManualTrainingModule module, String block, int numberOfQuestions, int blockTokens) {
+    }
+
+    /** Rough completion size of one generated question, explanation included */
+    private static final int TOKENS_PER_QUESTION = 200;
+    /** Completion tokens of a final exam request beyond its questions */
+    private static final int EXAM_OVERHEAD_TOKENS = 300;
+
+    private static final int MIN_SUMMARY_TOKENS = 150;
+    private static final int MAX_REDUCE_ROUNDS = 3;
+    /** Set on responses cut at max_tokens, which are never cached */
+    private static final String TRUNCATED = "truncated";
+    /** Extensions extractTextFromFile has a parser for */
+    private static final List<String> TEXT_EXTENSIONS = List.of(".pdf", ".docx", ".pptx", ".txt");
+    private static final String UNSUPPORTED_FILE_TYPE = "[Unsupported file type for content extraction]";
+
+    private static final double OPENAI_TEMPERATURE = 0.3; // Lower temperature for better instruction following
+    private static final String OPENAI_SYSTEM_PROMPT =
+        "You are a JSON-only API. Return ONLY valid JSON (start with {, end with }). " +
+        "Expert instructional designer creating specific content-based titles.";
+
+    /**
+     * Whether the provider is configured and not known to be down; read from memory, see AIHealthMonitor
+     */
+    public boolean checkAIAvailability() {
+        if (!llmProvider.isConfigured()) {
+            log.warn("AI provider {} is not configured", llmProvider.model());
             return false;
         }
+        return healthMonitor.isAvailable();
     }
     
     /**
      * Generate training metadata (title, description) from uploaded files
      */
     public Map<String, String> generateTrainingMetadata(String companyName, String industry, String gig, List<FileInfo> files) throws Exception {
+        return generateTrainingMetadata(companyName, industry, gig, files, false);
+    }
+
+    /**
+     * @param bypassCache ignore a cached response for the same prompt and call OpenAI again
+     */
+    public Map<String, String> generateTrainingMetadata(String companyName, String industry, String gig, List<FileInfo> files,
+                                                        boolean bypassCache) throws Exception {
         if (!checkAIAvailability()) {
             throw new RuntimeException("AI service is not available");
         }
@@ -113,7 +202,7 @@ public class AIService {
         prompt.append("REMEMBER: Return ONLY the JSON object. No text before or after.\n");
         
         // Call OpenAI
-        Map<String, Object> aiResponse = callOpenAI(prompt.toString());
+        Map<String, Object> aiResponse = callOpenAICached("metadata", prompt.toString(), 2000, bypassCache);
         
         // Parse response
         Map<String, String> metadata = new HashMap<>();
@@ -123,8 +212,25 @@ public class AIService {
         return metadata;
     }
 
+    /**
+     * Receives step and progress (0-100) updates from long-running pipelines
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (step, progress, message) -> { };
+
+        void onProgress(String step, int progress, String message);
+    }
+
     public void organizeTrainingContent(String trainingId, List<FileInfo> files, String organizationInstructions, 
                                        boolean generateModuleQuizzes, boolean generateFinalExam) throws Exception {
+        organizeTrainingContent(trainingId, files, organizationInstructions, generateModuleQuizzes, generateFinalExam,
+            ProgressListener.NONE);
+    }
+
+    public void organizeTrainingContent(String trainingId, List<FileInfo> files, String organizationInstructions, 
+                                       boolean generateModuleQuizzes, boolean generateFinalExam,
+                                       ProgressListener progress) throws Exception {
         ManualTraining training = manualTrainingRepository.findById(trainingId)
                 .orElseThrow(() -> new RuntimeException("Training not found"));
 
@@ -143,19 +249,23 @@ public class AIService {
         }
 
         // Build prompt for OpenAI
+        progress.onProgress("extract-content", 5, "Extracting content from " + files.size() + " files");
         String prompt = buildOrganizationPrompt(training, files, organizationInstructions);
 
         // Call OpenAI API
-        Map<String, Object> aiResponse = callOpenAI(prompt);
+        progress.onProgress("organize", 30, "Organizing content into modules");
+        Map<String, Object> aiResponse = callOpenAI("organize", prompt);
 
         // Parse response and create modules/sections
+        progress.onProgress("create-modules", 55, "Creating modules and sections");
         createModulesFromAIResponse(training, aiResponse, files);
         
         // Generate quizzes based on user options
         if (generateModuleQuizzes || generateFinalExam) {
             log.info("Auto-generating quizzes for training: {} (module quizzes: {}, final exam: {})", 
                 trainingId, generateModuleQuizzes, generateFinalExam);
-            generateQuizzesForTraining(trainingId, generateModuleQuizzes, generateFinalExam);
+            progress.onProgress("generate-quizzes", 60, "Generating quizzes");
+            generateQuizzesForTraining(trainingId, generateModuleQuizzes, generateFinalExam, progress);
         } else {
             log.info("Skipping quiz generation for training: {} (user opted out)", trainingId);
         }
@@ -184,9 +294,13 @@ public class AIService {
     }
     
     /**
-     * Automatically generate quizzes for all modules and final exam
+     * Automatically generate quizzes for all modules and final exam.
+     * Module quizzes and the final exam are generated concurrently on aiQuizExecutor, each call
+     * bounded by a timeout; a module that fails or times out is skipped without affecting the others.
+     * All generated quizzes are saved in a single batch at the end.
      */
-    private void generateQuizzesForTraining(String trainingId, boolean generateModuleQuizzes, boolean generateFinalExam) {
+    private void generateQuizzesForTraining(String trainingId, boolean generateModuleQuizzes, boolean generateFinalExam,
+                                            ProgressListener progress) {
         try {
             // Get all modules for this training
             List<ManualTrainingModule> modules = manualTrainingModuleRepository.findByTrainingId(trainingId);
@@ -199,156 +313,370 @@ public class AIService {
             log.info("Generating quizzes for {} modules (module quizzes: {}, final exam: {})", 
                 modules.size(), generateModuleQuizzes, generateFinalExam);
             
-            // Generate quiz for each module (5-15 questions based on module content)
+            boolean withFinalExam = generateFinalExam && modules.size() > 1;
+            int total = (generateModuleQuizzes ? modules.size() : 0) + (withFinalExam ? 1 : 0);
+            AtomicInteger completed = new AtomicInteger();
+            
+            // Completions are reported from worker threads, listeners are not thread-safe
+            Runnable onCompleted = () -> {
+                synchronized (progress) {
+                    int done = completed.incrementAndGet();
+                    progress.onProgress("generate-quizzes", 60 + (35 * done) / total,
+                        "Generated " + done + "/" + total + " quizzes");
+                }
+            };
+            
+            List<CompletableFuture<ManualQuiz>> generations = new ArrayList<>();
+            
+            // Generate quiz for each module (5-15 questions based on module content),
+            // small modules packed together into one request
             if (generateModuleQuizzes) {
-            for (ManualTrainingModule module : modules) {
-                try {
-                    log.info("Generating quiz for module: {}", module.getTitle());
-                    
-                    Map<String, Object> moduleContent = convertModuleToContent(module);
-                    
-                    Map<String, Boolean> questionTypes = new HashMap<>();
-                    questionTypes.put("multipleChoice", true);
-                    questionTypes.put("trueFalse", true);
-                    questionTypes.put("shortAnswer", false);
-                    
-                        // Calculate dynamic number of questions (5-15)
-                        int numberOfQuestions = calculateQuestionsForModule(module);
-                        
-                        Map<String, Object> quizData = generateQuiz(moduleContent, numberOfQuestions, "medium", questionTypes, null);
-                    
-                    // Create the quiz
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> questions = (List<Map<String, Object>>) quizData.get("questions");
-                    
-                    com.trainingplatform.core.entities.ManualQuiz quiz = new com.trainingplatform.core.entities.ManualQuiz();
-                    quiz.setModuleId(module.getId());
-                    quiz.setTrainingId(trainingId);
-                    quiz.setTitle(module.getTitle() + " - Quiz");
-                    quiz.setDescription("Quiz auto-généré pour le module: " + module.getTitle());
-                    quiz.setPassingScore(70);
-                    quiz.setTimeLimit(15);
-                    quiz.setMaxAttempts(3);
-                    
-                    // Convert questions
-                    List<com.trainingplatform.core.entities.ManualQuiz.QuizQuestion> quizQuestions = new ArrayList<>();
-                    for (Map<String, Object> q : questions) {
-                        com.trainingplatform.core.entities.ManualQuiz.QuizQuestion question = 
-                            new com.trainingplatform.core.entities.ManualQuiz.QuizQuestion();
-                        question.setId((String) q.get("id"));
-                        question.setQuestion((String) q.get("question"));
-                        question.setType((String) q.get("type"));
-                        
-                        @SuppressWarnings("unchecked")
-                        List<String> options = (List<String>) q.get("options");
-                        question.setOptions(options);
-                        question.setCorrectAnswer(q.get("correctAnswer"));
-                        question.setExplanation((String) q.get("explanation"));
-                        question.setPoints(((Number) q.get("points")).intValue());
-                        
-                        quizQuestions.add(question);
-                    }
-                    
-                    quiz.setQuestions(quizQuestions);
-                    quiz.setSettings(com.trainingplatform.core.entities.ManualQuiz.QuizSettings.builder()
-                        .shuffleQuestions(true)
-                        .shuffleOptions(true)
-                        .showCorrectAnswers(true)
-                        .allowReview(true)
-                        .showExplanations(true)
-                        .build());
-                    
-                    // Save quiz
-                    quiz.setCreatedAt(java.time.LocalDateTime.now());
-                    quiz.setUpdatedAt(java.time.LocalDateTime.now());
-                    quiz.setId(java.util.UUID.randomUUID().toString());
-                    
-                    manualQuizRepository.save(quiz);
-                    
-                    log.info("Quiz created successfully for module: {}", module.getTitle());
-                    
-                } catch (Exception e) {
-                    log.error("Failed to generate quiz for module {}: {}", module.getTitle(), e.getMessage());
-                    // Continue with other modules even if one fails
+                for (List<QuizBatchEntry> batch : planQuizBatches(modules)) {
+                    if (batch.size() == 1) {
+                        generations.add(generateModuleQuizAsync(trainingId, batch.get(0).module(), onCompleted));
+                    } else {
+                        generations.addAll(generateQuizBatchAsync(trainingId, batch, onCompleted));
                     }
                 }
             }
             
-            // Generate final exam (20 questions)
-            if (generateFinalExam && modules.size() > 1) {
-                try {
-                    log.info("Generating final exam for training with 20 questions");
-                    Map<String, Object> examData = generateFinalExam(trainingId, 20);
-                    
-                    // Handle nested exam structure
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> exam = (Map<String, Object>) examData.get("exam");
-                    
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> questions = exam != null 
-                        ? (List<Map<String, Object>>) exam.get("questions")
-                        : (List<Map<String, Object>>) examData.get("questions");
-                    
-                    ManualTraining training = manualTrainingRepository.findById(trainingId).orElse(null);
-                    if (training != null) {
-                        com.trainingplatform.core.entities.ManualQuiz finalExam = 
-                            new com.trainingplatform.core.entities.ManualQuiz();
-                        finalExam.setModuleId(null); // Final exam doesn't belong to a module
-                        finalExam.setTrainingId(trainingId);
-                        finalExam.setTitle("Examen Final - " + training.getTitle());
-                        finalExam.setDescription("Examen final couvrant tous les modules");
-                        finalExam.setPassingScore(80);
-                        finalExam.setTimeLimit(45);
-                        finalExam.setMaxAttempts(2);
-                        
-                        // Convert questions
-                        List<com.trainingplatform.core.entities.ManualQuiz.QuizQuestion> examQuestions = new ArrayList<>();
-                        for (Map<String, Object> q : questions) {
-                            com.trainingplatform.core.entities.ManualQuiz.QuizQuestion question = 
-                                new com.trainingplatform.core.entities.ManualQuiz.QuizQuestion();
-                            question.setId((String) q.get("id"));
-                            question.setQuestion((String) q.get("question"));
-                            question.setType((String) q.get("type"));
-                            
-                            @SuppressWarnings("unchecked")
-                            List<String> options = (List<String>) q.get("options");
-                            question.setOptions(options);
-                            question.setCorrectAnswer(q.get("correctAnswer"));
-                            question.setExplanation((String) q.get("explanation"));
-                            question.setPoints(((Number) q.get("points")).intValue());
-                            
-                            examQuestions.add(question);
-                        }
-                        
-                        finalExam.setQuestions(examQuestions);
-                        finalExam.setSettings(com.trainingplatform.core.entities.ManualQuiz.QuizSettings.builder()
-                            .shuffleQuestions(true)
-                            .shuffleOptions(true)
-                            .showCorrectAnswers(false)
-                            .allowReview(true)
-                            .showExplanations(false)
-                            .build());
-                        
-                        finalExam.setCreatedAt(java.time.LocalDateTime.now());
-                        finalExam.setUpdatedAt(java.time.LocalDateTime.now());
-                        finalExam.setId(java.util.UUID.randomUUID().toString());
-                        
-                        manualQuizRepository.save(finalExam);
-                        
-                        log.info("Final exam created successfully");
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to generate final exam: {}", e.getMessage());
-                }
+            // Generate final exam (20 questions) alongside the module quizzes
+            if (withFinalExam) {
+                generations.add(generateQuizAsync("final exam", () -> buildFinalExam(trainingId), onCompleted));
+            }
+            
+            List<ManualQuiz> generated = generations.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+            
+            // Questions the training already has, from earlier generations or trainers, are dropped
+            questionIndex.removeDuplicates(trainingId, generated);
+            List<ManualQuiz> quizzes = generated.stream()
+                .filter(quiz -> !quiz.getQuestions().isEmpty())
+                .toList();
+            
+            if (!quizzes.isEmpty()) {
+                manualQuizRepository.saveAll(quizzes);
+                quizzes.forEach(questionIndex::add);
             }
             
-            log.info("Quiz generation completed for training: {}", trainingId);
+            log.info("Quiz generation completed for training {}: {}/{} quizzes saved", trainingId, quizzes.size(), total);
             
         } catch (Exception e) {
             log.error("Error generating quizzes for training: {}", e.getMessage());
             // Don't throw exception - allow training creation to succeed even if quiz generation fails
         }
     }
+    
+    /**
+     * Run one quiz generation on aiQuizExecutor. The timeout starts when the call starts, not
+     * when it is queued, so modules waiting for a free worker are not penalised.
+     *
+     * @return a future completing with the quiz, or with null if the generation failed or timed out
+     */
+    private CompletableFuture<ManualQuiz> generateQuizAsync(String label, Callable<ManualQuiz> generation,
+                                                            Runnable onCompleted) {
+        return callWithTimeout(generation).handle((quiz, error) -> {
+            if (error == null) {
+                log.info("Generated {}", label);
+            } else if (error instanceof TimeoutException) {
+                log.error("Timed out after {}s generating {}", quizTimeoutSeconds, label);
+            } else {
+                log.error("Failed to generate {}: {}", label, error.getMessage());
+            }
+            onCompleted.run();
+            return error == null ? quiz : null;
+        });
+    }
+    
+    private CompletableFuture<ManualQuiz> generateModuleQuizAsync(String trainingId, ManualTrainingModule module,
+                                                                  Runnable onCompleted) {
+        return generateQuizAsync("quiz for module " + module.getTitle(),
+            () -> buildModuleQuiz(trainingId, module), onCompleted);
+    }
+    
+    /**
+     * Run a call on aiQuizExecutor, bounded by the quiz timeout counted from when it starts.
+     * On timeout, or when the returned future is cancelled, the generation is interrupted and
+     * its HTTP calls are cancelled, so it does not keep the thread and the connection.
+     */
+    private <T> CompletableFuture<T> callWithTimeout(Callable<T> generation) {
+        CompletableFuture<T> call = new CompletableFuture<>();
+        CancellableTask<Void> task = new CancellableTask<>(() -> {
+            call.orTimeout(quizTimeoutSeconds, TimeUnit.SECONDS);
+            try {
+                call.complete(generation.call());
+            } catch (Exception e) {
+                call.completeExceptionally(e);
+            }
+        });
+        call.whenComplete((result, error) -> {
+            if (error != null) {
+                // No-op if the generation itself failed
+                task.cancel(true);
+            }
+        });
+        aiQuizExecutor.execute(task);
+        return call;
+    }
+    
+    /**
+     * Group modules, in order, into quiz requests. A batch is closed when the next module would
+     * push its content past the prompt budget, its questions past the completion budget, or its
+     * size past max-modules; modules too large to share a request end up alone.
+     */
+    private List<List<QuizBatchEntry>> planQuizBatches(List<ManualTrainingModule> modules) {
+        List<List<QuizBatchEntry>> batches = new ArrayList<>();
+        List<QuizBatchEntry> current = new ArrayList<>();
+        int promptTokens = 0;
+        int completionTokens = 0;
+        
+        for (ManualTrainingModule module : modules) {
+            int numberOfQuestions = calculateQuestionsForModule(module);
+            if (!quizBatchingEnabled) {
+                batches.add(List.of(new QuizBatchEntry(module, null, numberOfQuestions, 0)));
+                continue;
+            }
+            
+            String block = buildQuizBatchBlock(module, numberOfQuestions);
+            QuizBatchEntry entry = new QuizBatchEntry(module, block, numberOfQuestions, tokenChunker.countTokens(block));
+            int entryCompletionTokens = numberOfQuestions * TOKENS_PER_QUESTION;
+            if (!current.isEmpty() && (current.size() >= quizBatchMaxModules
+                    || promptTokens + entry.blockTokens() > quizBatchPromptBudgetTokens
+                    || completionTokens + entryCompletionTokens > quizBatchCompletionBudgetTokens)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                promptTokens = 0;
+                completionTokens = 0;
+            }
+            current.add(entry);
+            promptTokens += entry.blockTokens();
+            completionTokens += entryCompletionTokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        
+        log.info("Planned {} quiz requests for {} modules", batches.size(), modules.size());
+        return batches;
+    }
+    
+    /**
+     * Generate the quizzes of several modules with one call. Modules the response has no usable
+     * quiz for, or all of them if the call fails, are generated again one by one.
+     *
+     * @return one future per module of the batch, in order
+     */
+    private List<CompletableFuture<ManualQuiz>> generateQuizBatchAsync(String trainingId, List<QuizBatchEntry> batch,
+                                                                        Runnable onCompleted) {
+        String label = "quiz batch of " + batch.size() + " modules";
+        CompletableFuture<Map<String, ManualQuiz>> batchCall = callWithTimeout(() -> buildQuizBatch(trainingId, batch))
+            .handle((quizzes, error) -> {
+                if (error == null) {
+                    log.info("Generated {} ({} usable)", label, quizzes.size());
+                    return quizzes;
+                }
+                if (error instanceof TimeoutException) {
+                    log.error("Timed out after {}s generating {}", quizTimeoutSeconds, label);
+                } else {
+                    log.error("Failed to generate {}: {}", label, error.getMessage());
+                }
+                return Map.of();
+            });
+        
+        List<CompletableFuture<ManualQuiz>> quizzes = new ArrayList<>();
+        for (QuizBatchEntry entry : batch) {
+            ManualTrainingModule module = entry.module();
+            quizzes.add(batchCall.thenCompose(generated -> {
+                ManualQuiz quiz = generated.get(module.getId());
+                if (quiz != null) {
+                    onCompleted.run();
+                    return CompletableFuture.completedFuture(quiz);
+                }
+                log.info("Retrying quiz for module {} on its own", module.getTitle());
+                return generateModuleQuizAsync(trainingId, module, onCompleted);
+            }));
+        }
+        return quizzes;
+    }
+    
+    /**
+     * @return the quizzes by module id, only for modules that got at least the questions asked for
+     */
+    private Map<String, ManualQuiz> buildQuizBatch(String trainingId, List<QuizBatchEntry> batch) throws Exception {
+        if (!checkAIAvailability()) {
+            throw new RuntimeException("AI service is not available");
+        }
+        
+        AIRequest request = buildQuizBatchRequest(batch);
+        Map<String, Object> response = callOpenAICached("quiz-batch", request.prompt(), request.maxTokens(), false);
+        
+        Map<String, ManualQuiz> quizzes = new HashMap<>();
+        Object byModule = response.get("quizzes");
+        if (!(byModule instanceof Map<?, ?> quizzesByModule)) {
+            return quizzes;
+        }
+        for (QuizBatchEntry entry : batch) {
+            Object value = quizzesByModule.get(entry.module().getId());
+            // Either the questions array itself or {"questions": [...]}
+            Object questions = value instanceof Map<?, ?> quiz ? quiz.get("questions") : value;
+            int count = questions instanceof List<?> list ? list.size() : 0;
+            if (count < entry.numberOfQuestions()) {
+                log.warn("Quiz batch returned {} questions for module {}, {} asked",
+                    count, entry.module().getTitle(), entry.numberOfQuestions());
+                continue;
+            }
+            try {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> moduleQuestions = (List<Map<String, Object>>) questions;
+                quizzes.put(entry.module().getId(), toModuleQuiz(trainingId, entry.module(), moduleQuestions));
+            } catch (RuntimeException e) {
+                log.warn("Quiz batch returned unusable questions for module {}: {}", entry.module().getTitle(), e.getMessage());
+            }
+        }
+        return quizzes;
+    }
+    
+    private ManualQuiz buildModuleQuiz(String trainingId, ManualTrainingModule module) throws Exception {
+        log.info("Generating quiz for module: {}", module.getTitle());
+        
+        Map<String, Object> moduleContent = convertModuleToContent(module);
+        
+        // Calculate dynamic number of questions (5-15)
+        int numberOfQuestions = calculateQuestionsForModule(module);
+        
+        Map<String, Object> quizData = generateQuiz(moduleContent, numberOfQuestions, "medium", moduleQuizQuestionTypes(), null);
+        
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> questions = (List<Map<String, Object>>) quizData.get("questions");
+        return toModuleQuiz(trainingId, module, questions);
+    }
+    
+    private static Map<String, Boolean> moduleQuizQuestionTypes() {
+        Map<String, Boolean> questionTypes = new HashMap<>();
+        questionTypes.put("multipleChoice", true);
+        questionTypes.put("trueFalse", true);
+        questionTypes.put("shortAnswer", false);
+        return questionTypes;
+    }
+    
+    /**
+     * The quiz request a module gets with the automatic settings (5-15 questions by section count,
+     * medium difficulty, multiple-choice and true/false). key is its response cache key, a hash of
+     * the prompt and so of the module content; a generate-quiz request with these settings for the
+     * same content is answered by the draft.
+     */
+    public record QuizDraft(String key, String prompt, int maxTokens, int estimatedTokens) {
+    }
+    
+    public QuizDraft moduleQuizDraft(ManualTrainingModule module) {
+        AIRequest request = buildQuizRequest(convertModuleToContent(module), calculateQuestionsForModule(module),
+            "medium", moduleQuizQuestionTypes(), null);
+        String key = cacheKey("quiz", request.prompt(), request.maxTokens());
+        return new QuizDraft(key, request.prompt(), request.maxTokens(),
+            tokenChunker.countTokens(request.prompt()) + request.maxTokens());
+    }
+    
+    /**
+     * Generate the draft into the response cache, without waiting for it. Cancelling the future
+     * abandons the call unless an explicit request has joined it meanwhile.
+     *
+     * @return the running generation, or null if the draft is cached already
+     */
+    public CompletableFuture<Map<String, Object>> pregenerateQuiz(QuizDraft draft) {
+        if (!checkAIAvailability() || responseCache.get(draft.key()).isPresent()) {
+            return null;
+        }
+        // Routed and cached like an explicit quiz request, so that request finds it
+        return callOpenAICachedAsync("quiz", draft.prompt(), draft.maxTokens(), true);
+    }
+    
+    private ManualQuiz toModuleQuiz(String trainingId, ManualTrainingModule module, List<Map<String, Object>> questions) {
+        ManualQuiz quiz = new ManualQuiz();
+        quiz.setModuleId(module.getId());
+        quiz.setTrainingId(trainingId);
+        quiz.setTitle(module.getTitle() + " - Quiz");
+        quiz.setDescription("Quiz auto-généré pour le module: " + module.getTitle());
+        quiz.setPassingScore(70);
+        quiz.setTimeLimit(15);
+        quiz.setMaxAttempts(3);
+        quiz.setQuestions(toQuizQuestions(questions));
+        quiz.setSettings(ManualQuiz.QuizSettings.builder()
+            .shuffleQuestions(true)
+            .shuffleOptions(true)
+            .showCorrectAnswers(true)
+            .allowReview(true)
+            .showExplanations(true)
+            .build());
+        quiz.setCreatedAt(java.time.LocalDateTime.now());
+        quiz.setUpdatedAt(java.time.LocalDateTime.now());
+        quiz.setId(java.util.UUID.randomUUID().toString());
+        return quiz;
+    }
+    
+    /**
+     * @return the final exam, or null if the training no longer exists
+     */
+    private ManualQuiz buildFinalExam(String trainingId) throws Exception {
+        log.info("Generating final exam for training with 20 questions");
+        Map<String, Object> examData = generateFinalExam(trainingId, 20);
+        
+        // Handle nested exam structure
+        @SuppressWarnings("unchecked")
+        Map<String, Object> exam = (Map<String, Object>) examData.get("exam");
+        
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> questions = exam != null 
+            ? (List<Map<String, Object>>) exam.get("questions")
+            : (List<Map<String, Object>>) examData.get("questions");
+        
+        ManualTraining training = manualTrainingRepository.findById(trainingId).orElse(null);
+        if (training == null) {
+            return null;
+        }
+        
+        ManualQuiz finalExam = new ManualQuiz();
+        finalExam.setModuleId(null); // Final exam doesn't belong to a module
+        finalExam.setTrainingId(trainingId);
+        finalExam.setTitle("Examen Final - " + training.getTitle());
+        finalExam.setDescription("Examen final couvrant tous les modules");
+        finalExam.setPassingScore(80);
+        finalExam.setTimeLimit(45);
+        finalExam.setMaxAttempts(2);
+        finalExam.setQuestions(toQuizQuestions(questions));
+        finalExam.setSettings(ManualQuiz.QuizSettings.builder()
+            .shuffleQuestions(true)
+            .shuffleOptions(true)
+            .showCorrectAnswers(false)
+            .allowReview(true)
+            .showExplanations(false)
+            .build());
+        finalExam.setCreatedAt(java.time.LocalDateTime.now());
+        finalExam.setUpdatedAt(java.time.LocalDateTime.now());
+        finalExam.setId(java.util.UUID.randomUUID().toString());
+        return finalExam;
+    }
+    
+    private List<ManualQuiz.QuizQuestion> toQuizQuestions(List<Map<String, Object>> questions) {
+        List<ManualQuiz.QuizQuestion> quizQuestions = new ArrayList<>();
+        for (Map<String, Object> q : questions) {
+            ManualQuiz.QuizQuestion question = new ManualQuiz.QuizQuestion();
+            question.setId((String) q.get("id"));
+            question.setQuestion((String) q.get("question"));
+            question.setType((String) q.get("type"));
+            
+            @SuppressWarnings("unchecked")
+            List<String> options = (List<String>) q.get("options");
+            question.setOptions(options);
+            question.setCorrectAnswer(q.get("correctAnswer"));
+            question.setExplanation((String) q.get("explanation"));
+            question.setPoints(((Number) q.get("points")).intValue());
+            
+            quizQuestions.add(question);
+        }
+        return quizQuestions;
+    }
 
     private String buildOrganizationPrompt(ManualTraining training, List<FileInfo> files, String organizationInstructions) {
         StringBuilder prompt = new StringBuilder();
@@ -368,13 +696,15 @@ public class AIService {
         }
         
         prompt.append("FILES:\n");
+        // The files share the content budget of the prompt equally
+        int fileBudgetTokens = Math.max(MIN_SUMMARY_TOKENS, organizationBudgetTokens / files.size());
+        List<String> contents = extractFileContents(files, fileBudgetTokens);
         for (int i = 0; i < files.size(); i++) {
             FileInfo file = files.get(i);
             prompt.append(String.format("\nFile %d: %s\n", i, file.getName()));
             
-            // Extract and include actual file content
-            String content = extractFileContent(file);
-            prompt.append(content).append("\n");
+            // Include actual file content
+            prompt.append(contents.get(i)).append("\n");
         }
 
         prompt.append("\nTASK: Create modules with sections from file content. Group related files into modules.\n");
@@ -397,132 +727,260 @@ public class AIService {
         return prompt.toString();
     }
 
-    private Map<String, Object> callOpenAI(String prompt) throws Exception {
-        return callOpenAI(prompt, 2000);
+    private Map<String, Object> callOpenAI(String operation, String prompt) throws Exception {
+        return callOpenAI(operation, prompt, 2000);
     }
     
-    private Map<String, Object> callOpenAI(String prompt, int maxTokens) throws Exception {
-        if (openaiApiKey == null || openaiApiKey.isEmpty()) {
-            throw new RuntimeException("OpenAI API key is not configured");
+    private Map<String, Object> callOpenAI(String operation, String prompt, int maxTokens) throws Exception {
+        return completeOpenAI(operation, prompt, maxTokens).response();
+    }
+    
+    /**
+     * A parsed response and the model that produced it, null if it was truncated
+     */
+    private record Completion(Map<String, Object> response, String model) {
+    }
+    
+    /**
+     * A provider response and the model of the route that answered it
+     */
+    private record RoutedResponse(LlmResponse response, String model) {
+    }
+    
+    /**
+     * Response cache and single-flight key of a request. Built from the operation's configured
+     * route rather than the latency ordered one, so it does not change with recent latencies:
+     * identical requests share an entry whichever model of the route answers them. The provider
+     * is part of it, so mock answers cached in a shared database are never served by openai.
+     */
+    private String cacheKey(String operation, String prompt, int maxTokens) {
+        String route = llmProvider.name() + ':' + operation + ':' + String.join(",", modelRouter.configuredRoute(operation));
+        return AIResponseCacheService.keyFor(route, OPENAI_TEMPERATURE, maxTokens, OPENAI_SYSTEM_PROMPT, prompt);
+    }
+    
+    /**
+     * Same as callOpenAI, answered from the response cache when the same request was made before.
+     * With bypassCache a fresh response is always fetched, and replaces the cached one.
+     * Identical requests already in flight are joined instead of being sent again.
+     */
+    private Map<String, Object> callOpenAICached(String operation, String prompt, int maxTokens, boolean bypassCache) throws Exception {
+        String key = cacheKey(operation, prompt, maxTokens);
+        if (!bypassCache) {
+            Optional<Map<String, Object>> cached = responseCache.get(key);
+            if (cached.isPresent()) {
+                log.info("Serving OpenAI response from cache ({})", key);
+                telemetry.recordCacheHit(operation, modelRouter.configuredRoute(operation).get(0));
+                return cached.get();
+            }
         }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(openaiApiKey);
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", openaiModel);
-        requestBody.put("temperature", 0.3); // Lower temperature for better instruction following
-        requestBody.put("max_tokens", maxTokens);
-
-        List<Map<String, String>> messages = new ArrayList<>();
         
-        // System message to set the AI's behavior
-        Map<String, String> systemMessage = new HashMap<>();
-        systemMessage.put("role", "system");
-        systemMessage.put("content", 
-            "You are a JSON-only API. Return ONLY valid JSON (start with {, end with }). " +
-            "Expert instructional designer creating specific content-based titles."
-        );
-        messages.add(systemMessage);
-        
-        // User message with the actual prompt
-        Map<String, String> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-        userMessage.put("content", prompt);
-        messages.add(userMessage);
+        return requestCoalescer.execute(key, () -> {
+            Completion completion = completeOpenAI(operation, prompt, maxTokens);
+            cacheIfComplete(key, completion, maxTokens);
+            return completion.response();
+        });
+    }
+    
+    /**
+     * callOpenAICached without waiting for the response, for requests fanned out in parallel.
+     * The call runs on the coalescer's executor; cancelling the future abandons it.
+     */
+    private CompletableFuture<Map<String, Object>> callOpenAICachedAsync(String operation, String prompt, int maxTokens,
+                                                                         boolean bypassCache) {
+        String key = cacheKey(operation, prompt, maxTokens);
+        if (!bypassCache) {
+            Optional<Map<String, Object>> cached = responseCache.get(key);
+            if (cached.isPresent()) {
+                log.info("Serving OpenAI response from cache ({})", key);
+                telemetry.recordCacheHit(operation, modelRouter.configuredRoute(operation).get(0));
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        }
         
-        requestBody.put("messages", messages);
-
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
+        return requestCoalescer.submit(key, () -> {
+            Completion completion = completeOpenAI(operation, prompt, maxTokens);
+            cacheIfComplete(key, completion, maxTokens);
+            return completion.response();
+        });
+    }
+    
+    private Completion completeOpenAI(String operation, String prompt, int maxTokens) throws Exception {
         try {
-            Map<String, Object> response = restTemplate.postForObject(
-                    OPENAI_API_URL,
-                    request,
-                    Map.class
-            );
-
-            if (response == null) {
-                throw new RuntimeException("OpenAI API returned null response");
+            RoutedResponse answer;
+            try {
+                answer = invokeProvider(operation, modelRouter.route(operation), prompt, maxTokens, null);
+            } catch (LlmTruncatedException e) {
+                return new Completion(parseTruncated(e), null);
             }
-
-            // Extract the JSON response from OpenAI
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-            if (choices == null || choices.isEmpty()) {
-                throw new RuntimeException("OpenAI API returned no choices");
-            }
-
-            Map<String, Object> choice = choices.get(0);
-            
-            // Check if response was truncated
-            String finishReason = (String) choice.get("finish_reason");
-            if ("length".equals(finishReason)) {
-                log.warn("OpenAI response was truncated due to max_tokens limit. Current limit: {}", maxTokens);
-                throw new RuntimeException("Response was truncated. The content is too long. Please reduce the number of questions or module content.");
-            }
-            
-            Map<String, Object> messageObj = (Map<String, Object>) choice.get("message");
-            String content = (String) messageObj.get("content");
+            String content = answer.response().content();
 
             log.info("OpenAI raw response length: {} chars", content.length());
             log.info("OpenAI response preview (first 500 chars): {}", content.substring(0, Math.min(500, content.length())));
 
             // Parse the JSON content
-            return parseAIResponse(content);
+            return new Completion(jsonExtractor.parseAIResponse(content), answer.model());
         } catch (Exception e) {
-            log.error("Failed to call OpenAI API: {}", e.getMessage());
-            
-            // Check if it's a context length error
-            if (e.getMessage() != null && e.getMessage().contains("context_length_exceeded")) {
-                throw new RuntimeException("Context length exceeded. The model's limit is 8192 tokens total. " +
-                    "Please reduce the number of questions (try 8-10 for final exam) or simplify module content.");
+            throw openAIFailure(e);
+        }
+    }
+    
+    /**
+     * Streaming variant of callOpenAICached. On a cache hit the cached questions are replayed
+     * to onQuestion at once; otherwise the completion is streamed and each question is handed
+     * over as soon as its JSON object closes.
+     */
+    private Map<String, Object> streamOpenAICached(String operation, String prompt, int maxTokens, boolean bypassCache,
+                                                   Consumer<Map<String, Object>> onQuestion) throws Exception {
+        String key = cacheKey(operation, prompt, maxTokens);
+        if (!bypassCache) {
+            Optional<Map<String, Object>> cached = responseCache.get(key);
+            if (cached.isPresent()) {
+                log.info("Serving OpenAI response from cache ({})", key);
+                telemetry.recordCacheHit(operation, modelRouter.configuredRoute(operation).get(0));
+                StreamingQuestionParser.questionsOf(cached.get()).forEach(onQuestion);
+                return cached.get();
             }
-            
-            throw new RuntimeException("Failed to call OpenAI API: " + e.getMessage());
         }
+        
+        StreamingQuestionParser parser = new StreamingQuestionParser(objectMapper, onQuestion);
+        Completion completion;
+        try {
+            RoutedResponse answer = streamOpenAI(operation, prompt, maxTokens, parser::feed);
+            completion = new Completion(jsonExtractor.parseAIResponse(answer.response().content()), answer.model());
+        } catch (LlmTruncatedException e) {
+            // The complete questions were already streamed, the parser ignores the cut one
+            completion = new Completion(parseTruncated(e), null);
+        }
+        cacheIfComplete(key, completion, maxTokens);
+        return completion.response();
     }
-
-    private Map<String, Object> parseAIResponse(String content) {
+    
+    /**
+     * Stream the completion from the LLM provider, passing each content delta to onDelta as it arrives
+     *
+     * @return the complete message and the model that produced it
+     */
+    private RoutedResponse streamOpenAI(String operation, String prompt, int maxTokens,
+                                        Consumer<String> onDelta) throws Exception {
+        RoutedResponse answer;
         try {
-            String cleanContent = content.trim();
-            
-            // Find JSON content between ```json and ``` or between { and }
-            int jsonStart = cleanContent.indexOf("```json");
-            if (jsonStart != -1) {
-                // Extract content after ```json
-                cleanContent = cleanContent.substring(jsonStart + 7);
-                int jsonEnd = cleanContent.indexOf("```");
-                if (jsonEnd != -1) {
-                    cleanContent = cleanContent.substring(0, jsonEnd);
-                    }
-                } else {
-                // Try to find JSON object boundaries { ... }
-                int firstBrace = cleanContent.indexOf('{');
-                int lastBrace = cleanContent.lastIndexOf('}');
-                
-                if (firstBrace != -1 && lastBrace != -1 && lastBrace > firstBrace) {
-                    cleanContent = cleanContent.substring(firstBrace, lastBrace + 1);
-                }
+            answer = invokeProvider(operation, modelRouter.route(operation), prompt, maxTokens, onDelta);
+        } catch (StreamingQuestionParser.StreamAbortedException | LlmTruncatedException e) {
+            // The provider closed the response, which cancels the completion
+            throw e;
+        } catch (Exception e) {
+            throw openAIFailure(e);
+        }
+
+        log.info("OpenAI streamed response length: {} chars", answer.response().content().length());
+        return answer;
+    }
+    
+    /**
+     * Call the provider with the first model of the route, streaming if onDelta is given, and
+     * record latency, tokens and outcome of each call under the operation and its model.
+     * A failed call is retried on the next model, unless it was truncated, interrupted or had
+     * already streamed content. Each call is refused at once while AIHealthMonitor has the
+     * provider down, before it waits for the rate limiter.
+     */
+    private RoutedResponse invokeProvider(String operation, List<String> models, String prompt, int maxTokens,
+                                       Consumer<String> onDelta) throws Exception {
+        int promptTokens = tokenChunker.countTokens(prompt);
+        boolean[] streamed = new boolean[1];
+        Consumer<String> deltas = onDelta == null ? null : delta -> {
+            streamed[0] = true;
+            onDelta.accept(delta);
+        };
+        
+        for (int attempt = 0; ; attempt++) {
+            String model = models.get(attempt);
+            // Fail fast instead of queueing, and spending rate limit tokens, for a provider that is down
+            AIHealthMonitor.Permit permit = healthMonitor.tryAcquire();
+            if (permit == null) {
+                throw aiUnavailable();
+            }
+            try {
+                callScheduler.acquire(promptTokens + maxTokens);
+            } catch (RuntimeException e) {
+                healthMonitor.release(permit);
+                throw e;
             }
             
-            cleanContent = cleanContent.trim();
-            
-            // Validate it's JSON-like (starts with { and ends with })
-            if (!cleanContent.startsWith("{") || !cleanContent.endsWith("}")) {
-                log.error("Content doesn't look like JSON: {}", cleanContent.substring(0, Math.min(100, cleanContent.length())));
-                throw new RuntimeException("Response doesn't contain valid JSON structure");
+            LlmRequest request = new LlmRequest(model, OPENAI_SYSTEM_PROMPT, prompt, maxTokens, OPENAI_TEMPERATURE);
+            long start = System.nanoTime();
+            try {
+                LlmResponse response = deltas == null
+                    ? llmProvider.complete(request)
+                    : llmProvider.stream(request, deltas);
+                healthMonitor.record(permit, null);
+                telemetry.recordCall(operation, model, AITelemetry.SUCCESS, System.nanoTime() - start,
+                    response.promptTokens() > 0 ? response.promptTokens() : promptTokens,
+                    response.completionTokens() > 0 ? response.completionTokens() : tokenChunker.countTokens(response.content()));
+                return new RoutedResponse(response, model);
+            } catch (LlmTruncatedException e) {
+                healthMonitor.record(permit, e);
+                telemetry.recordCall(operation, model, AITelemetry.TRUNCATED, System.nanoTime() - start,
+                    promptTokens, maxTokens);
+                throw e;
+            } catch (Exception e) {
+                healthMonitor.record(permit, e);
+                telemetry.recordCall(operation, model, AITelemetry.ERROR, System.nanoTime() - start, 0, 0);
+                if (attempt + 1 >= models.size() || streamed[0] || e instanceof InterruptedException
+                        || e instanceof StreamingQuestionParser.StreamAbortedException
+                        || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.warn("{} call on {} failed ({}), falling back to {}", operation, model, e.getMessage(),
+                    models.get(attempt + 1));
             }
-
-            // Parse JSON
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.readValue(cleanContent, Map.class);
-        } catch (Exception e) {
-            log.error("Failed to parse AI response: {}", e.getMessage());
-            log.error("Content preview: {}", content.substring(0, Math.min(200, content.length())));
-            throw new RuntimeException("Failed to parse AI response: " + e.getMessage());
         }
     }
+    
+    private static RuntimeException aiUnavailable() {
+        return new RuntimeException("AI service is temporarily unavailable, please retry later");
+    }
+    
+    private RuntimeException openAIFailure(Exception e) {
+        log.error("Failed to call OpenAI API: {}", e.getMessage());
+        
+        // Check if it's a context length error
+        if (e.getMessage() != null && e.getMessage().contains("context_length_exceeded")) {
+            return new RuntimeException("Context length exceeded. The model's limit is 8192 tokens total. " +
+                "Please reduce the number of questions or simplify module content.");
+        }
+        
+        return new RuntimeException("Failed to call OpenAI API: " + e.getMessage());
+    }
+    
+    /**
+     * What was generated before the completion hit max_tokens, closed after the last complete
+     * question or module, or the truncation itself if nothing complete was generated.
+     * The result is flagged with truncated: true.
+     */
+    private Map<String, Object> parseTruncated(LlmTruncatedException e) {
+        Map<String, Object> partial;
+        try {
+            partial = new LinkedHashMap<>(jsonExtractor.extract(e.getPartialContent()));
+        } catch (RuntimeException parseFailure) {
+            throw e;
+        }
+        log.warn("Completion hit max_tokens, keeping the {} chars generated before", e.getPartialContent().length());
+        partial.put(TRUNCATED, true);
+        return partial;
+    }
+    
+    /**
+     * Cache a response unless it was cut at max_tokens, so the next identical request
+     * gets a new chance at a complete one instead of the partial result for the whole TTL
+     */
+    private void cacheIfComplete(String key, Completion completion, int maxTokens) {
+        if (Boolean.TRUE.equals(completion.response().get(TRUNCATED))) {
+            log.info("Not caching truncated response ({})", key);
+            return;
+        }
+        responseCache.put(key, completion.model(), maxTokens, completion.response());
+    }
+
 
     @SuppressWarnings("unchecked")
     private void createModulesFromAIResponse(ManualTraining training, Map<String, Object> aiResponse, List<FileInfo> files) {
@@ -673,98 +1131,354 @@ public class AIService {
     }
     
     /**
-     * Downloads and extracts text content from a file URL
+     * Text content of each file, in order, fitted into tokenBudget tokens each.
+     *
+     * Files are downloaded concurrently on fileDownloadExecutor and each is parsed on
+     * fileParseExecutor as soon as it has arrived, so the whole takes about as long as the
+     * slowest file. A file not downloaded and parsed within file-timeout-seconds, or failing,
+     * is replaced by a note; the other files are kept.
+     */
+    private List<String> extractFileContents(List<FileInfo> files, int tokenBudget) {
+        long start = System.currentTimeMillis();
+        // Aborts the download itself, not only the wait for it
+        OkHttpClient downloadClient = httpClient.newBuilder()
+            .callTimeout(fileTimeoutSeconds, TimeUnit.SECONDS)
+            .build();
+        
+        List<CompletableFuture<String>> contents = new ArrayList<>();
+        for (FileInfo file : files) {
+            String placeholder = mediaPlaceholder(file);
+            if (placeholder != null) {
+                contents.add(CompletableFuture.completedFuture(placeholder));
+                continue;
+            }
+            contents.add(CompletableFuture
+                .supplyAsync(() -> extractedTextStore.findByPublicId(file.getPublicId()), fileDownloadExecutor)
+                .thenCompose(stored -> {
+                    if (stored.isPresent()) {
+                        log.info("Reusing extracted text of {}", file.getName());
+                        return CompletableFuture.completedFuture(stored.get());
+                    }
+                    return downloadAndExtract(downloadClient, file);
+                })
+                // Condensing waits on summary calls, so it does not hold a parse thread
+                .thenApplyAsync(content -> condenseContent(file.getName(), content, tokenBudget), fileDownloadExecutor)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    String reason = cause instanceof TimeoutException
+                        ? "timed out after " + fileTimeoutSeconds + "s"
+                        : cause.getMessage();
+                    log.error("Failed to extract content from {}: {}", file.getName(), reason);
+                    return String.format("[Content extraction failed: %s]", reason);
+                }));
+        }
+        
+        List<String> extracted = contents.stream().map(CompletableFuture::join).toList();
+        log.info("Extracted content of {} files in {} ms", files.size(), System.currentTimeMillis() - start);
+        return extracted;
+    }
+    
+    /**
+     * Download a file and extract its text on fileParseExecutor, unless a file with the same
+     * content was extracted before. Fails after file-timeout-seconds; a parse still running
+     * then is interrupted, and the parsers stop at their next page, paragraph or slide.
+     */
+    private CompletableFuture<String> downloadAndExtract(OkHttpClient client, FileInfo file) {
+        CompletableFuture<String> text = new CompletableFuture<>();
+        text.orTimeout(fileTimeoutSeconds, TimeUnit.SECONDS);
+        CompletableFuture.supplyAsync(() -> fetchFile(client, file), fileDownloadExecutor)
+            .whenComplete((downloaded, e) -> {
+                if (e != null) {
+                    text.completeExceptionally(e);
+                } else if (text.isDone()) {
+                    // Timed out while downloading
+                    deleteTempFile(downloaded.path());
+                } else {
+                    parse(file, downloaded, text);
+                }
+            });
+        return text;
+    }
+    
+    /**
+     * Extract the downloaded file's text into result on fileParseExecutor, cancelling the parse
+     * when result fails first. The temp file is deleted once the parse has ended, or by the
+     * canceller if the parse never started.
      */
-    private String extractFileContent(FileInfo file) {
+    private void parse(FileInfo file, DownloadedFile downloaded, CompletableFuture<String> result) {
+        // Whoever claims the file first deletes it: the parse when it starts, else the canceller
+        AtomicBoolean claimed = new AtomicBoolean();
+        CancellableTask<Void> parse = new CancellableTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(extractText(file, downloaded));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                deleteTempFile(downloaded.path());
+            }
+        });
+        result.whenComplete((content, e) -> {
+            if (e != null) {
+                parse.cancel(true);
+                if (claimed.compareAndSet(false, true)) {
+                    deleteTempFile(downloaded.path());
+                }
+            }
+        });
         try {
-            log.info("Downloading and extracting content from: {}", file.getName());
-            
-            // Skip content extraction for media files (videos, images, YouTube links)
-            String fileType = file.getType().toLowerCase();
-            if (fileType.equals("video") || fileType.equals("image") || fileType.equals("youtube")) {
-                log.info("Skipping content extraction for media type: {}", fileType);
-                return String.format("[%s file - content analysis not applicable]", fileType.toUpperCase());
+            fileParseExecutor.execute(parse);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+    
+    /** A downloaded temp file, with the text stored for its content if it was extracted before */
+    private record DownloadedFile(Path path, String sha256, String storedText) {
+    }
+    
+    private DownloadedFile fetchFile(OkHttpClient client, FileInfo file) {
+        Path path = downloadFile(client, file);
+        try {
+            String sha256 = ExtractedTextStore.sha256(path);
+            String stored = extractedTextStore.findByHash(sha256, file.getPublicId()).orElse(null);
+            if (stored != null) {
+                log.info("Reusing extracted text of {}, same content as an earlier file", file.getName());
+            }
+            return new DownloadedFile(path, sha256, stored);
+        } catch (IOException e) {
+            deleteTempFile(path);
+            throw new CompletionException(e);
+        }
+    }
+    
+    /**
+     * Note standing in for the content of media files (videos, images, YouTube links), null for documents
+     */
+    private static String mediaPlaceholder(FileInfo file) {
+        String fileType = file.getType().toLowerCase();
+        if (fileType.equals("video") || fileType.equals("image") || fileType.equals("youtube")) {
+            log.info("Skipping content extraction for media type: {}", fileType);
+            return String.format("[%s file - content analysis not applicable]", fileType.toUpperCase());
+        }
+        return null;
+    }
+    
+    /**
+     * Stream a file from Cloudinary to a temp file, refusing files over max-download-size
+     */
+    private Path downloadFile(OkHttpClient client, FileInfo file) {
+        log.info("Downloading content from: {}", file.getName());
+        long maxBytes = maxDownloadSize.toBytes();
+        Path target = null;
+        try (Response response = client.newCall(new Request.Builder().url(file.getUrl()).build()).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Download failed with status " + response.code());
+            }
+            if (response.body().contentLength() > maxBytes) {
+                throw new IOException("File is larger than " + maxDownloadSize.toMegabytes() + "MB");
             }
             
-            // Download file from Cloudinary
-            ResponseEntity<byte[]> response = restTemplate.getForEntity(file.getUrl(), byte[].class);
-            byte[] fileBytes = response.getBody();
-            
-            if (fileBytes == null || fileBytes.length == 0) {
+            target = Files.createTempFile("training-file-", null);
+            try (InputStream in = response.body().byteStream();
+                 OutputStream out = Files.newOutputStream(target)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    // Content-Length may be missing
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new IOException("File is larger than " + maxDownloadSize.toMegabytes() + "MB");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            deleteTempFile(target);
+            throw new CompletionException(e);
+        }
+    }
+    
+    private static void deleteTempFile(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", path, e.getMessage());
+        }
+    }
+    
+    /**
+     * Extract the text of a downloaded file and store it for its content
+     */
+    private String extractText(FileInfo file, DownloadedFile downloaded) {
+        if (downloaded.storedText() != null) {
+            return downloaded.storedText();
+        }
+        try {
+            long size = Files.size(downloaded.path());
+            if (size == 0) {
                 log.warn("Downloaded file is empty: {}", file.getName());
                 return "[Empty file]";
             }
-            
-            // Extract text content based on file type
-            String content = extractTextFromBytes(fileBytes, file.getName());
-            
-            // Limit content length to avoid token limits (max 800 characters per file)
-            if (content.length() > 800) {
-                content = content.substring(0, 800) + "\n[...content truncated...]";
+            if (!hasTextExtractor(file.getName())) {
+                // Not stored: the same bytes may come back under a name that can be parsed
+                return UNSUPPORTED_FILE_TYPE;
             }
-            
+            String content = extractTextFromFile(downloaded.path(), file.getName());
             log.info("Successfully extracted {} characters from {}", content.length(), file.getName());
-            return content;
+            return extractedTextStore.save(downloaded.sha256(), file.getPublicId(), file.getName(), size, content);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    /**
+     * Fit extracted text into tokenBudget tokens. Text that fits is returned unchanged. Longer text is
+     * split along page, slide and paragraph boundaries and the chunks are summarized in parallel (map);
+     * the joined summaries are summarized again while they still exceed the budget (reduce).
+     */
+    private String condenseContent(String label, String text, int tokenBudget) {
+        int tokens = tokenChunker.countTokens(text);
+        if (tokens <= tokenBudget) {
+            return text;
+        }
+        
+        long start = System.currentTimeMillis();
+        String current = text;
+        for (int round = 1; round <= MAX_REDUCE_ROUNDS; round++) {
+            List<String> chunks = tokenChunker.split(current, chunkTokens);
+            int summaryTokens = Math.max(MIN_SUMMARY_TOKENS, tokenBudget / chunks.size());
+            current = String.join("\n\n", summarizeChunks(label, chunks, summaryTokens));
             
+            int condensedTokens = tokenChunker.countTokens(current);
+            log.info("Condensed {} from {} to {} tokens ({} chunks, round {}, {} ms)",
+                label, tokens, condensedTokens, chunks.size(), round, System.currentTimeMillis() - start);
+            if (condensedTokens <= tokenBudget) {
+                return current;
+            }
+        }
+        return tokenChunker.truncate(current, tokenBudget);
+    }
+    
+    /**
+     * Summarize chunks concurrently on aiQuizExecutor, in order. A chunk whose summary fails
+     * is kept as a truncated excerpt so its content is not lost entirely.
+     */
+    private List<String> summarizeChunks(String label, List<String> chunks, int summaryTokens) {
+        List<CompletableFuture<String>> summaries = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            String part = (i + 1) + "/" + chunks.size();
+            summaries.add(CompletableFuture
+                .supplyAsync(() -> summarizeChunk(label, part, chunk, summaryTokens), aiQuizExecutor)
+                .exceptionally(e -> {
+                    log.warn("Failed to summarize part {} of {}: {}", part, label, e.getMessage());
+                    return tokenChunker.truncate(chunk, summaryTokens);
+                }));
+        }
+        return summaries.stream().map(CompletableFuture::join).toList();
+    }
+    
+    private String summarizeChunk(String label, String part, String chunk, int summaryTokens) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Summarize this excerpt (part ").append(part).append(" of ").append(label)
+            .append(") for an instructional designer building a training.\n");
+        prompt.append("Keep the key topics, definitions, procedures, figures and examples. ");
+        // ~0.75 words per token
+        prompt.append("At most ").append(summaryTokens * 3 / 4).append(" words.\n\n");
+        prompt.append("EXCERPT:\n").append(chunk).append("\n\n");
+        prompt.append("Return ONLY JSON: {\"summary\":\"...\"}\n");
+        
+        try {
+            // Room for the JSON wrapper around the summary
+            Map<String, Object> response = callOpenAICached("summarize", prompt.toString(), summaryTokens + 100, false);
+            Object summary = response.get("summary");
+            if (summary == null) {
+                throw new RuntimeException("No summary in response");
+            }
+            return summary.toString();
         } catch (Exception e) {
-            log.error("Failed to extract content from {}: {}", file.getName(), e.getMessage());
-            return String.format("[Content extraction failed: %s]", e.getMessage());
+            throw new CompletionException(e);
         }
     }
     
+    private static boolean hasTextExtractor(String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        String lowerName = fileName.toLowerCase();
+        return TEXT_EXTENSIONS.stream().anyMatch(lowerName::endsWith);
+    }
+    
     /**
-     * Extract text from file bytes based on file extension
+     * Extract text from a file on disk based on its name's extension. Parsers read the file
+     * in place, so heap use does not grow with the file size.
      */
-    private String extractTextFromBytes(byte[] fileBytes, String fileName) throws IOException {
+    private String extractTextFromFile(Path path, String fileName) throws IOException {
         String lowerName = fileName.toLowerCase();
         
         if (lowerName.endsWith(".pdf")) {
-            return extractPdfText(fileBytes);
+            return extractPdfText(path);
         } else if (lowerName.endsWith(".docx")) {
-            return extractWordText(fileBytes);
+            return extractWordText(path);
         } else if (lowerName.endsWith(".pptx")) {
-            return extractPowerPointText(fileBytes);
+            return extractPowerPointText(path);
         } else if (lowerName.endsWith(".txt")) {
-            return new String(fileBytes);
+            return new String(Files.readAllBytes(path));
         } else {
-            return "[Unsupported file type for content extraction]";
+            return UNSUPPORTED_FILE_TYPE;
         }
     }
     
     /**
-     * Extract text from PDF bytes
+     * Extract text from a PDF file, read with random access; parser scratch data goes to temp files
      */
-    private String extractPdfText(byte[] fileBytes) throws IOException {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(fileBytes);
-             PDDocument document = PDDocument.load(bis)) {
-            PDFTextStripper stripper = new PDFTextStripper();
+    private String extractPdfText(Path path) throws IOException {
+        try (PDDocument document = PDDocument.load(path.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void startPage(PDPage page) throws IOException {
+                    checkParseCancelled();
+                    super.startPage(page);
+                }
+            };
+            // Page boundaries let the chunker split between pages
+            stripper.setPageEnd(TokenChunker.PAGE_BREAK);
             return stripper.getText(document);
         }
     }
     
     /**
-     * Extract text from Word (DOCX) bytes
+     * Extract text from a Word (DOCX) file, whose zip entries are read from disk as needed
      */
-    private String extractWordText(byte[] fileBytes) throws IOException {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(fileBytes);
-             XWPFDocument document = new XWPFDocument(bis)) {
-            List<XWPFParagraph> paragraphs = document.getParagraphs();
-            return paragraphs.stream()
-                .map(XWPFParagraph::getText)
-                .collect(Collectors.joining("\n"));
+    private String extractWordText(Path path) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(openPackage(path))) {
+            List<String> paragraphs = new ArrayList<>();
+            for (XWPFParagraph paragraph : document.getParagraphs()) {
+                checkParseCancelled();
+                paragraphs.add(paragraph.getText());
+            }
+            return String.join("\n", paragraphs);
         }
     }
     
     /**
-     * Extract text from PowerPoint (PPTX) bytes
+     * Extract text from a PowerPoint (PPTX) file, whose zip entries are read from disk as needed
      */
-    private String extractPowerPointText(byte[] fileBytes) throws IOException {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(fileBytes);
-             XMLSlideShow ppt = new XMLSlideShow(bis)) {
+    private String extractPowerPointText(Path path) throws IOException {
+        try (XMLSlideShow ppt = new XMLSlideShow(openPackage(path))) {
             StringBuilder text = new StringBuilder();
             List<XSLFSlide> slides = ppt.getSlides();
             
             for (int i = 0; i < slides.size(); i++) {
+                checkParseCancelled();
                 XSLFSlide slide = slides.get(i);
                 text.append("\n--- Slide ").append(i + 1).append(" ---\n");
                 
@@ -783,6 +1497,24 @@ public class AIService {
         }
     }
     
+    /**
+     * The parsers do not react to interrupts themselves, so they check between pages,
+     * paragraphs and slides whether their file was given up
+     */
+    private static void checkParseCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("File parsing was cancelled");
+        }
+    }
+    
+    private static OPCPackage openPackage(Path path) throws IOException {
+        try {
+            return OPCPackage.open(path.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Not a valid Office document: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Generate quiz questions using AI based on module content
      */
@@ -791,10 +1523,52 @@ public class AIService {
                                              String difficulty,
                                              Map<String, Boolean> questionTypes,
                                              Map<String, Object> questionDistribution) throws Exception {
+        return generateQuiz(moduleContent, numberOfQuestions, difficulty, questionTypes, questionDistribution, false);
+    }
+    
+    /**
+     * @param bypassCache ignore a cached response for the same prompt and call OpenAI again
+     */
+    public Map<String, Object> generateQuiz(Map<String, Object> moduleContent, 
+                                             int numberOfQuestions,
+                                             String difficulty,
+                                             Map<String, Boolean> questionTypes,
+                                             Map<String, Object> questionDistribution,
+                                             boolean bypassCache) throws Exception {
         if (!checkAIAvailability()) {
             throw new RuntimeException("AI service is not available");
         }
-
+        
+        AIRequest request = buildQuizRequest(moduleContent, numberOfQuestions, difficulty, questionTypes, questionDistribution);
+        return callOpenAICached("quiz", request.prompt(), request.maxTokens(), bypassCache);
+    }
+    
+    /**
+     * Same as generateQuiz, with the completion streamed from OpenAI.
+     * onQuestion receives each question as soon as its JSON object is complete.
+     *
+     * @return the full quiz, as generateQuiz returns it
+     */
+    public Map<String, Object> streamQuiz(Map<String, Object> moduleContent, 
+                                          int numberOfQuestions,
+                                          String difficulty,
+                                          Map<String, Boolean> questionTypes,
+                                          Map<String, Object> questionDistribution,
+                                          boolean bypassCache,
+                                          Consumer<Map<String, Object>> onQuestion) throws Exception {
+        if (!checkAIAvailability()) {
+            throw new RuntimeException("AI service is not available");
+        }
+        
+        AIRequest request = buildQuizRequest(moduleContent, numberOfQuestions, difficulty, questionTypes, questionDistribution);
+        return streamOpenAICached("quiz", request.prompt(), request.maxTokens(), bypassCache, onQuestion);
+    }
+    
+    private AIRequest buildQuizRequest(Map<String, Object> moduleContent, 
+                                       int numberOfQuestions,
+                                       String difficulty,
+                                       Map<String, Boolean> questionTypes,
+                                       Map<String, Object> questionDistribution) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("You are an expert quiz creator. Generate quiz questions from module content.\n\n");
         
@@ -958,31 +1732,218 @@ public class AIService {
         
         log.info("Generating quiz with {} questions, using {} max_tokens", numberOfQuestions, maxTokens);
         
-        // Call OpenAI with calculated token limit
-        return callOpenAI(prompt.toString(), maxTokens);
+        return new AIRequest(prompt.toString(), maxTokens);
+    }
+    
+    /**
+     * The part of a batched quiz prompt describing one module, keyed by its id
+     */
+    private String buildQuizBatchBlock(ManualTrainingModule module, int numberOfQuestions) {
+        StringBuilder block = new StringBuilder();
+        block.append("=== MODULE ").append(module.getId()).append(" ===\n");
+        block.append("Title: ").append(module.getTitle()).append("\n");
+        if (module.getDescription() != null && !module.getDescription().isEmpty()) {
+            block.append("Description: ").append(module.getDescription()).append("\n");
+        }
+        
+        if (module.getSections() != null) {
+            for (int i = 0; i < module.getSections().size(); i++) {
+                ManualTrainingModule.TrainingSection section = module.getSections().get(i);
+                block.append(String.format("Section %d: %s", (i + 1), section.getTitle()));
+                if (section.getContent() != null && section.getContent().getText() != null
+                        && !section.getContent().getText().isEmpty()) {
+                    String sectionText = section.getContent().getText();
+                    // Same cut as single-module quiz prompts
+                    if (sectionText.length() > 2000) {
+                        sectionText = sectionText.substring(0, 2000) + "...";
+                    }
+                    block.append("\nContent: ").append(sectionText);
+                }
+                block.append("\n");
+            }
+        }
+        block.append("Number of Questions: ").append(numberOfQuestions).append("\n\n");
+        return block.toString();
+    }
+    
+    private AIRequest buildQuizBatchRequest(List<QuizBatchEntry> batch) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are an expert quiz creator. Generate a separate quiz for EACH module below from its content.\n\n");
+        
+        int totalQuestions = 0;
+        for (QuizBatchEntry entry : batch) {
+            prompt.append(entry.block());
+            totalQuestions += entry.numberOfQuestions();
+        }
+        
+        prompt.append("=== YOUR TASK ===\n");
+        prompt.append("For each of the ").append(batch.size()).append(" modules, create EXACTLY its Number of Questions.\n");
+        prompt.append("REQUIREMENTS:\n");
+        prompt.append("1. Questions must be DIRECTLY related to the content of their own module\n");
+        prompt.append("2. Difficulty: medium\n");
+        prompt.append("3. Allowed types: multiple-choice (4 options, one correct) and true-false (0=True, 1=False)\n");
+        prompt.append("4. Each question has a helpful explanation and points (1-5 based on difficulty)\n\n");
+        
+        prompt.append("CRITICAL: Return ONLY raw JSON. NO markdown, NO code blocks, NO extra text.\n");
+        prompt.append("Key each module's questions by the module id given after MODULE:\n");
+        prompt.append("{\"quizzes\":{\"<module id>\":[{\"id\":\"q1\",\"question\":\"Question text here?\",");
+        prompt.append("\"type\":\"multiple-choice\",\"options\":[\"Option A\",\"Option B\",\"Option C\",\"Option D\"],");
+        prompt.append("\"correctAnswer\":0,\"explanation\":\"Why this answer is correct...\",\"points\":1}]}}\n");
+        prompt.append("CRITICAL: Include ALL ").append(batch.size()).append(" modules and ALL their questions.\n");
+        
+        int maxTokens = Math.min(totalQuestions * TOKENS_PER_QUESTION + 500, 8000);
+        log.info("Generating quiz batch of {} modules with {} questions, using {} max_tokens",
+            batch.size(), totalQuestions, maxTokens);
+        
+        return new AIRequest(prompt.toString(), maxTokens);
     }
     
     /**
      * Generate a final exam for the entire training
      */
     public Map<String, Object> generateFinalExam(String trainingId, int numberOfQuestions) throws Exception {
+        return generateFinalExam(trainingId, numberOfQuestions, false);
+    }
+    
+    /**
+     * Large exams are split across groups of modules, at most questions-per-request questions
+     * each. The parts are generated in parallel, each with a completion budget sized for its
+     * questions, and merged with duplicate questions removed. A part that fails is retried once.
+     * If it fails again, or was cut at max_tokens, the exam is returned without its questions,
+     * flagged with partial: true, failedParts and requestedQuestions.
+     *
+     * @param bypassCache ignore a cached response for the same prompt and call OpenAI again
+     */
+    public Map<String, Object> generateFinalExam(String trainingId, int numberOfQuestions, boolean bypassCache) throws Exception {
         ManualTraining training = manualTrainingRepository.findById(trainingId)
                 .orElseThrow(() -> new RuntimeException("Training not found"));
+        List<ManualTrainingModule> modules = findExamModules(trainingId);
         
-        // Get all modules for this training
-        List<ManualTrainingModule> modules = manualTrainingModuleRepository.findByTrainingId(trainingId);
+        int parts = Math.min(modules.size(),
+            (numberOfQuestions + examQuestionsPerRequest - 1) / Math.max(1, examQuestionsPerRequest));
+        if (parts <= 1) {
+            AIRequest request = buildFinalExamRequest(training, modules, 0, modules.size(), numberOfQuestions);
+            return callOpenAICached("final-exam", request.prompt(), request.maxTokens(), bypassCache);
+        }
+        
+        // Contiguous module groups of near-equal size, questions in proportion to their modules
+        List<AIRequest> requests = new ArrayList<>();
+        List<CompletableFuture<Map<String, Object>>> calls = new ArrayList<>();
+        for (int part = 0; part < parts; part++) {
+            int from = modules.size() * part / parts;
+            int to = modules.size() * (part + 1) / parts;
+            int questions = numberOfQuestions * to / modules.size() - numberOfQuestions * from / modules.size();
+            if (questions > 0) {
+                AIRequest request = buildFinalExamRequest(training, modules, from, to, questions);
+                requests.add(request);
+                calls.add(callOpenAICachedAsync("final-exam", request.prompt(), request.maxTokens(), bypassCache));
+            }
+        }
+        log.info("Generating final exam of {} questions in {} parallel requests", numberOfQuestions, calls.size());
         
+        List<Map<String, Object>> questions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Exception firstFailure = null;
+        int failedParts = 0;
+        int truncatedParts = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            Map<String, Object> part;
+            try {
+                part = calls.get(i).get();
+            } catch (ExecutionException e) {
+                log.warn("Final exam part {}/{} failed ({}), retrying it once", i + 1, calls.size(), e.getCause().getMessage());
+                try {
+                    part = callOpenAICached("final-exam", requests.get(i).prompt(), requests.get(i).maxTokens(), bypassCache);
+                } catch (Exception retryFailure) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        calls.forEach(call -> call.cancel(false));
+                        throw new RuntimeException("Interrupted while generating final exam");
+                    }
+                    log.warn("Final exam part {}/{} failed again: {}", i + 1, calls.size(), retryFailure.getMessage());
+                    if (firstFailure == null) {
+                        firstFailure = retryFailure;
+                    }
+                    failedParts++;
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                calls.forEach(call -> call.cancel(false));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while generating final exam");
+            }
+            
+            if (Boolean.TRUE.equals(part.get(TRUNCATED))) {
+                truncatedParts++;
+            }
+            for (Map<String, Object> question : StreamingQuestionParser.questionsOf(part)) {
+                if (question.get("question") instanceof String text && seen.add(normalizeQuestion(text))) {
+                    questions.add(question);
+                }
+            }
+        }
+        if (questions.isEmpty()) {
+            throw firstFailure != null ? firstFailure : new RuntimeException("Final exam generation returned no questions");
+        }
+        
+        for (int i = 0; i < questions.size(); i++) {
+            questions.get(i).put("id", "q" + (i + 1));
+        }
+        log.info("Merged final exam: {} questions ({} asked)", questions.size(), numberOfQuestions);
+        
+        Map<String, Object> exam = new HashMap<>();
+        exam.put("questions", questions);
+        if (failedParts > 0 || truncatedParts > 0) {
+            log.warn("Final exam is partial: {} of {} parts failed, {} truncated, {} of {} questions",
+                failedParts, calls.size(), truncatedParts, questions.size(), numberOfQuestions);
+            exam.put("partial", true);
+            exam.put("failedParts", failedParts);
+            exam.put("requestedQuestions", numberOfQuestions);
+        }
+        return exam;
+    }
+    
+    /**
+     * Same as generateFinalExam, with the completion streamed from OpenAI in a single request.
+     * onQuestion receives each question as soon as its JSON object is complete.
+     */
+    public Map<String, Object> streamFinalExam(String trainingId, int numberOfQuestions, boolean bypassCache,
+                                               Consumer<Map<String, Object>> onQuestion) throws Exception {
+        ManualTraining training = manualTrainingRepository.findById(trainingId)
+                .orElseThrow(() -> new RuntimeException("Training not found"));
+        List<ManualTrainingModule> modules = findExamModules(trainingId);
+        
+        AIRequest request = buildFinalExamRequest(training, modules, 0, modules.size(), numberOfQuestions);
+        return streamOpenAICached("final-exam", request.prompt(), request.maxTokens(), bypassCache, onQuestion);
+    }
+    
+    private List<ManualTrainingModule> findExamModules(String trainingId) {
+        List<ManualTrainingModule> modules = manualTrainingModuleRepository.findByTrainingId(trainingId);
         if (modules == null || modules.isEmpty()) {
             throw new RuntimeException("No modules found for this training");
         }
-        
+        return modules;
+    }
+    
+    /**
+     * Lower-cased question text with punctuation and repeated whitespace removed
+     */
+    private static String normalizeQuestion(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+    
+    /**
+     * Exam request covering modules[from, to). Modules keep their number in the whole
+     * training, so moduleReference means the same in every part.
+     */
+    private AIRequest buildFinalExamRequest(ManualTraining training, List<ManualTrainingModule> modules,
+                                            int from, int to, int numberOfQuestions) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("Create a comprehensive final exam. Be CONCISE in JSON.\n\n");
         
         prompt.append("TRAINING: ").append(training.getTitle()).append("\n\n");
         
         prompt.append("MODULES:\n");
-        for (int i = 0; i < modules.size(); i++) {
+        for (int i = from; i < to; i++) {
             ManualTrainingModule module = modules.get(i);
             prompt.append(String.format("%d. %s\n", (i + 1), module.getTitle()));
             
@@ -1001,31 +1962,50 @@ public class AIService {
         prompt.append("JSON format (CONCISE explanations):\n");
         prompt.append("{\"questions\":[{\"id\":\"q1\",\"question\":\"?\",\"type\":\"multiple-choice\",");
         prompt.append("\"options\":[\"A\",\"B\",\"C\",\"D\"],\"correctAnswer\":0,");
-        prompt.append("\"explanation\":\"Brief.\",\"points\":2,\"moduleReference\":\"Module 1\"}]}\n\n");
+        prompt.append("\"explanation\":\"Brief.\",\"points\":2,\"moduleReference\":\"Module ").append(from + 1).append("\"}]}\n\n");
         prompt.append("CRITICAL: Return ONLY JSON starting with {\"questions\":[...]}. Keep explanations SHORT (max 20 words).\n");
         
-        // Call OpenAI with appropriate token limit
-        // gpt-4o-mini has 8192 total tokens, so we need: prompt_tokens + completion_tokens < 8192
-        // With ~500 tokens for prompt, we can safely use 4000 tokens for completion
-        return callOpenAI(prompt.toString(), 4000);
+        // Completion sized for the questions asked. Capped for gpt-4, first on the final-exam route, which
+        // has 8192 tokens for prompt and completion together; the gpt-4o-mini fallback allows more
+        return new AIRequest(prompt.toString(),
+            Math.min(numberOfQuestions * TOKENS_PER_QUESTION + EXAM_OVERHEAD_TOKENS, 6000));
     }
     
     /**
      * Analyze a document with AI to extract key topics, learning objectives, etc.
      */
     public Map<String, Object> analyzeDocument(MultipartFile file) throws Exception {
+        return analyzeDocument(file, false);
+    }
+    
+    /**
+     * @param bypassCache ignore a cached analysis of the same content and call OpenAI again
+     */
+    public Map<String, Object> analyzeDocument(MultipartFile file, boolean bypassCache) throws Exception {
         if (!checkAIAvailability()) {
             throw new RuntimeException("AI service is not available");
         }
 
-        // Extract text content from file
-        byte[] fileBytes = file.getBytes();
-        String content = extractTextFromBytes(fileBytes, file.getOriginalFilename());
-        
-        // Limit content to avoid token limits
-        if (content.length() > 4000) {
-            content = content.substring(0, 4000) + "\n[...content truncated...]";
+        // Extract text content from file, parsed from disk rather than from a copy in memory,
+        // unless the same content was extracted before
+        String content;
+        Path path = Files.createTempFile("analyzed-document-", null);
+        try {
+            file.transferTo(path);
+            String sha256 = ExtractedTextStore.sha256(path);
+            content = extractedTextStore.findByHash(sha256, null).orElse(null);
+            if (content == null && !hasTextExtractor(file.getOriginalFilename())) {
+                content = UNSUPPORTED_FILE_TYPE;
+            } else if (content == null) {
+                content = extractedTextStore.save(sha256, null, file.getOriginalFilename(), file.getSize(),
+                    extractTextFromFile(path, file.getOriginalFilename()));
+            }
+        } finally {
+            deleteTempFile(path);
         }
+        
+        // Fit the document into the prompt, summarizing instead of truncating
+        content = condenseContent(file.getOriginalFilename(), content, analysisBudgetTokens);
 
         StringBuilder prompt = new StringBuilder();
         prompt.append("You are an expert instructional designer analyzing training content.\n\n");
@@ -1056,13 +2036,20 @@ public class AIService {
         prompt.append("REMEMBER: Return ONLY the JSON object. No text before or after.\n");
         
         // Call OpenAI
-        return callOpenAI(prompt.toString(), 2000);
+        return callOpenAICached("analyze-document", prompt.toString(), 2000, bypassCache);
     }
     
     /**
      * Analyze a URL (YouTube or web page) with AI
      */
     public Map<String, Object> analyzeUrl(String url) throws Exception {
+        return analyzeUrl(url, false);
+    }
+    
+    /**
+     * @param bypassCache ignore a cached analysis of the same URL and call OpenAI again
+     */
+    public Map<String, Object> analyzeUrl(String url, boolean bypassCache) throws Exception {
         if (!checkAIAvailability()) {
             throw new RuntimeException("AI service is not available");
         }
@@ -1096,7 +2083,7 @@ public class AIService {
         prompt.append("REMEMBER: Return ONLY the JSON object. No text before or after.\n");
         
         // Call OpenAI
-        return callOpenAI(prompt.toString(), 2000);
+        return callOpenAICached("analyze-url", prompt.toString(), 2000, bypassCache);
     }
     
     /**
@@ -1187,7 +2174,7 @@ public class AIService {
         prompt.append("Just plain text describing the suggested organization structure.\n");
         prompt.append("Example format: \"Create 3 modules: Module 1 - Introduction (3-4 sections covering basics), Module 2 - Core Concepts (4-5 sections with practical examples), Module 3 - Advanced Topics (3-4 sections for advanced learners).\"\n");
         
-        Map<String, Object> response = callOpenAI(prompt.toString(), 500);
+        Map<String, Object> response = callOpenAI("organization-suggestion", prompt.toString(), 500);
         
         // Extract the organization text from the response
         // The response might be a string directly or in a nested structure
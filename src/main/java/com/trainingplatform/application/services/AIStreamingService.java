@@ -0,0 +1,101 @@
+package com.trainingplatform.application.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Serves quiz and exam generation as server-sent events.
+ *
+ * The generation runs on aiStreamingExecutor, a bounded pool of its own, so open streams never
+ * hold the threads of background quiz generation. Events: "question" for each question as soon as it is parsed,
+ * then "done" with the complete result, or "error". If the client goes away the OpenAI stream
+ * is aborted instead of being read to the end.
+ */
+@Service
+@Slf4j
+public class AIStreamingService {
+
+    /**
+     * A streaming generation: reports questions to onQuestion and returns the complete result
+     */
+    @FunctionalInterface
+    public interface QuestionStream {
+        Map<String, Object> run(Consumer<Map<String, Object>> onQuestion) throws Exception;
+    }
+
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${app.ai.streaming.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    public AIStreamingService(@Qualifier("aiStreamingExecutor") ThreadPoolTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Start a streamed generation
+     *
+     * @throws TaskRejectedException if too many streams are running or waiting already
+     */
+    public SseEmitter stream(String label, QuestionStream generation) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        try {
+            executor.execute(() -> run(emitter, label, generation));
+        } catch (TaskRejectedException e) {
+            log.warn("Rejected streaming {}: {} streams running, {} waiting",
+                label, executor.getActiveCount(), executor.getQueueSize());
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void run(SseEmitter emitter, String label, QuestionStream generation) {
+        AtomicInteger index = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        try {
+            Map<String, Object> result = generation.run(question -> {
+                int position = index.getAndIncrement();
+                if (position == 0) {
+                    log.info("First question of {} streamed after {} ms", label, System.currentTimeMillis() - start);
+                }
+                send(emitter, "question", Map.of("index", position, "question", question));
+            });
+            send(emitter, "done", result);
+            emitter.complete();
+            log.info("Streamed {} ({} questions) in {} ms", label, index.get(), System.currentTimeMillis() - start);
+        } catch (StreamingQuestionParser.StreamAbortedException e) {
+            log.info("Client left while streaming {}, generation aborted", label);
+        } catch (Exception e) {
+            log.error("Error streaming {}: {}", label, e.getMessage());
+            sendError(emitter, e.getMessage());
+        }
+    }
+
+    private void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            throw new StreamingQuestionParser.StreamAbortedException("Client disconnected");
+        }
+    }
+
+    private void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("message", message != null ? message : "Unknown error")));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.trainingplatform.application.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import com.trainingplatform.infrastructure.repositories.CompanyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for outbound AI calls, tagged by operation, model and companyId, and
+ * readable under /actuator/metrics:
+ *
+ * ai.call.duration           timer, also tagged with outcome (success, truncated, error)
+ * ai.call.prompt.tokens      distribution summary
+ * ai.call.completion.tokens  distribution summary
+ * ai.call.cost               distribution summary in USD, from the model's app.ai.telemetry price
+ * ai.call.cache.hits         counter, calls answered from the response cache
+ * ai.route.duration          timer of successful calls per operation and model, with p50/p95
+ *                            over the last few minutes, used by AIModelRouter
+ * ai.scheduler.queue.depth   gauge of calls waiting in AICallScheduler, tagged by priority
+ * ai.scheduler.wait          timer of the AICallScheduler wait, tagged by priority and
+ *                            outcome (granted, rejected)
+ *
+ * Token counts are the ones reported by the provider, or local estimates when it reports none.
+ *
+ * The company comes from the unauthenticated X-Company-Id header, so the companyId tag only
+ * carries ids found in the companies collection, up to app.ai.telemetry.max-tagged-companies
+ * of them; calls of any other id are tagged "other". This bounds the number of meters a
+ * client can create.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AITelemetry {
+
+    public static final String SUCCESS = "success";
+    public static final String TRUNCATED = "truncated";
+    public static final String ERROR = "error";
+    public static final String GRANTED = "granted";
+    public static final String REJECTED = "rejected";
+
+    private static final String DURATION = "ai.call.duration";
+    private static final String PROMPT_TOKENS = "ai.call.prompt.tokens";
+    private static final String COMPLETION_TOKENS = "ai.call.completion.tokens";
+    private static final String COST = "ai.call.cost";
+    private static final String CACHE_HITS = "ai.call.cache.hits";
+    private static final String ROUTE_DURATION = "ai.route.duration";
+    private static final String SCHEDULER_QUEUE = "ai.scheduler.queue.depth";
+    private static final String SCHEDULER_WAIT = "ai.scheduler.wait";
+
+    public static final String COMPANY_TAG = "companyId";
+    static final String OTHER_COMPANY = "other";
+    // Ids looked up already, so a flood of unknown ids does not query MongoDB on every call
+    private static final int MAX_REMEMBERED_COMPANY_IDS = 10_000;
+
+    private final MeterRegistry registry;
+    private final AITelemetryProperties properties;
+    private final CompanyRepository companyRepository;
+
+    private final Map<String, String> companyTags = new ConcurrentHashMap<>();
+    private int taggedCompanies;
+
+    /**
+     * Record one upstream call, made for the company of AICallContext.current()
+     */
+    public void recordCall(String operation, String model, String outcome, long elapsedNanos,
+                           int promptTokens, int completionTokens) {
+        Tags tags = tags(operation, model);
+
+        Timer.builder(DURATION)
+            .description("Duration of outbound AI calls, rate limiter wait excluded")
+            .tags(tags.and("outcome", outcome))
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (SUCCESS.equals(outcome)) {
+            routeTimer(operation, model).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (promptTokens > 0 || completionTokens > 0) {
+            AITelemetryProperties.Price price = properties.priceOf(model);
+            DistributionSummary.builder(PROMPT_TOKENS).baseUnit("tokens").tags(tags)
+                .register(registry).record(promptTokens);
+            DistributionSummary.builder(COMPLETION_TOKENS).baseUnit("tokens").tags(tags)
+                .register(registry).record(completionTokens);
+            DistributionSummary.builder(COST).baseUnit("usd").tags(tags)
+                .register(registry)
+                .record((promptTokens * price.getInput() + completionTokens * price.getOutput()) / 1_000_000);
+        }
+    }
+
+    public void recordCacheHit(String operation, String model) {
+        Counter.builder(CACHE_HITS).tags(tags(operation, model)).register(registry).increment();
+    }
+
+    /**
+     * Publish the number of calls of the priority class waiting in AICallScheduler
+     */
+    public void registerQueueDepth(AICallContext.Priority priority, Supplier<Number> depth) {
+        Gauge.builder(SCHEDULER_QUEUE, depth)
+            .description("AI calls waiting for the rate limiter")
+            .tag("priority", priority.name().toLowerCase())
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * Record how long a call waited in AICallScheduler before it was granted or rejected
+     */
+    public void recordSchedulerWait(AICallContext.Priority priority, String outcome, long waitNanos) {
+        Timer.builder(SCHEDULER_WAIT)
+            .description("Time AI calls waited for the rate limiter")
+            .tags("priority", priority.name().toLowerCase(), "outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer routeTimer(String operation, String model) {
+        return Timer.builder(ROUTE_DURATION)
+            .description("Duration of successful AI calls per operation and model")
+            .tags("operation", operation, "model", model)
+            .publishPercentiles(0.5, 0.95)
+            .register(registry);
+    }
+
+    /**
+     * p95 latency of recent successful calls of the operation on the model, NaN if there were none
+     */
+    public double recentP95Millis(String operation, String model) {
+        Timer timer = registry.find(ROUTE_DURATION).tags("operation", operation, "model", model).timer();
+        if (timer == null) {
+            return Double.NaN;
+        }
+        double p95 = percentileMillis(timer, 0.95);
+        return p95 > 0 ? p95 : Double.NaN;
+    }
+
+    private static double percentileMillis(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private Tags tags(String operation, String model) {
+        return Tags.of("operation", operation, "model", model, COMPANY_TAG, companyTag(AICallContext.current().companyId()));
+    }
+
+    /**
+     * The company id itself for known companies while fewer than max-tagged-companies are, else "other"
+     */
+    String companyTag(String companyId) {
+        if (AICallContext.SHARED_COMPANY.equals(companyId)) {
+            return companyId;
+        }
+        String tag = companyTags.get(companyId);
+        return tag != null ? tag : lookUpCompanyTag(companyId);
+    }
+
+    private synchronized String lookUpCompanyTag(String companyId) {
+        String tag = companyTags.get(companyId);
+        if (tag != null) {
+            return tag;
+        }
+        boolean known;
+        try {
+            known = taggedCompanies < properties.getMaxTaggedCompanies() && companyRepository.existsById(companyId);
+        } catch (Exception e) {
+            // Not remembered, the next call looks again
+            log.warn("Company lookup for AI telemetry failed for {}: {}", companyId, e.getMessage());
+            return OTHER_COMPANY;
+        }
+        tag = known ? companyId : OTHER_COMPANY;
+        if (known) {
+            taggedCompanies++;
+            companyTags.put(companyId, tag);
+        } else if (companyTags.size() < MAX_REMEMBERED_COMPANY_IDS) {
+            companyTags.put(companyId, tag);
+        }
+        return tag;
+    }
+
+    /**
+     * Totals per operation and per company since startup: calls by outcome, latency,
+     * tokens, cost and cache hits; and recent p50/p95 latency per operation and model
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Map<String, Object>> operations = new TreeMap<>();
+        Map<String, Map<String, Object>> companies = new TreeMap<>();
+
+        registry.find(DURATION).timers().forEach(timer -> {
+            Map<String, Object> operation = group(operations, timer, "operation");
+            String outcome = timer.getId().getTag("outcome");
+            add(operation, "calls", timer.count());
+            add(operation, outcome + "Calls", timer.count());
+            add(operation, "totalMillis", (long) timer.totalTime(TimeUnit.MILLISECONDS));
+            operation.merge("maxMillis", (long) timer.max(TimeUnit.MILLISECONDS), (a, b) -> Math.max((long) a, (long) b));
+            add(group(companies, timer, COMPANY_TAG), "calls", timer.count());
+        });
+        summaries(PROMPT_TOKENS, "promptTokens", operations, companies);
+        summaries(COMPLETION_TOKENS, "completionTokens", operations, companies);
+        registry.find(COST).summaries().forEach(cost -> {
+            addCost(group(operations, cost, "operation"), cost.totalAmount());
+            addCost(group(companies, cost, COMPANY_TAG), cost.totalAmount());
+        });
+        registry.find(CACHE_HITS).counters().forEach(hits ->
+            add(group(operations, hits, "operation"), "cacheHits", (long) hits.count()));
+
+        operations.values().forEach(operation -> {
+            long calls = (long) operation.getOrDefault("calls", 0L);
+            Object totalMillis = operation.remove("totalMillis");
+            operation.put("avgMillis", calls == 0 ? 0 : (long) totalMillis / calls);
+        });
+
+        // Routes: operation -> model -> recent latency
+        Map<String, Map<String, Object>> routes = new TreeMap<>();
+        registry.find(ROUTE_DURATION).timers().forEach(timer -> {
+            Map<String, Object> route = new LinkedHashMap<>();
+            route.put("calls", timer.count());
+            route.put("p50Millis", (long) percentileMillis(timer, 0.5));
+            route.put("p95Millis", (long) percentileMillis(timer, 0.95));
+            group(routes, timer, "operation").put(timer.getId().getTag("model"), route);
+        });
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("operations", operations);
+        snapshot.put("companies", companies);
+        snapshot.put("routes", routes);
+        return snapshot;
+    }
+
+    private void summaries(String name, String key, Map<String, Map<String, Object>> operations,
+                           Map<String, Map<String, Object>> companies) {
+        registry.find(name).summaries().forEach(summary -> {
+            add(group(operations, summary, "operation"), key, (long) summary.totalAmount());
+            add(group(companies, summary, COMPANY_TAG), key, (long) summary.totalAmount());
+        });
+    }
+
+    private static Map<String, Object> group(Map<String, Map<String, Object>> groups, Meter meter, String tag) {
+        return groups.computeIfAbsent(meter.getId().getTag(tag), key -> new LinkedHashMap<>());
+    }
+
+    private static void add(Map<String, Object> group, String key, long value) {
+        group.merge(key, value, (a, b) -> (long) a + (long) b);
+    }
+
+    private static void addCost(Map<String, Object> group, double value) {
+        group.merge("costUsd", value, (a, b) -> (double) a + (double) b);
+    }
+}
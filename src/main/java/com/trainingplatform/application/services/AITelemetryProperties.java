@@ -0,0 +1,41 @@
+package com.trainingplatform.application.services;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AITelemetry settings under app.ai.telemetry: model prices for the ai.call.cost metric and
+ * the bound on companyId tag values.
+ *
+ * prices maps a model name, as sent to the provider, to its price per million tokens; write
+ * names containing dots in brackets, e.g. "[gpt-4.1]", so they are bound unchanged. Calls on a
+ * model not listed are priced with unknown-model-price.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ai.telemetry")
+public class AITelemetryProperties {
+
+    private Map<String, Price> prices = new HashMap<>();
+
+    private Price unknownModelPrice = new Price();
+
+    /** Companies tagged by id in the companyId tag; calls of further companies are tagged "other" */
+    private int maxTaggedCompanies = 500;
+
+    @Data
+    public static class Price {
+        /** USD per million prompt tokens */
+        private double input;
+        /** USD per million completion tokens */
+        private double output;
+    }
+
+    public Price priceOf(String model) {
+        return prices.getOrDefault(model, unknownModelPrice);
+    }
+}
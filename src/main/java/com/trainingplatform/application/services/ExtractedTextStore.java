@@ -0,0 +1,189 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.ExtractedText;
+import com.trainingplatform.infrastructure.repositories.ExtractedTextRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of the text extracted from uploaded files (extracted_texts).
+ *
+ * Entries are keyed by the SHA-256 of the file bytes, and can also be found by the Cloudinary
+ * publicIds the content was downloaded from, so known files are neither downloaded nor parsed
+ * again. Bump EXTRACTOR_VERSION when extraction changes; older entries are then re-extracted.
+ * Store failures are logged and treated as misses, they never fail the extraction itself.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExtractedTextStore {
+
+    // 2: placeholders for unsupported file types are no longer stored
+    static final String EXTRACTOR_VERSION = "2";
+
+    private static final Pattern PAGE_START = Pattern.compile(TokenChunker.PAGE_BREAK + "|(?=\\n--- Slide \\d+ ---)");
+
+    private final ExtractedTextRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${app.ai.content.extracted-texts.enabled:true}")
+    private boolean enabled;
+
+    // Keeps documents well below MongoDB's 16MB limit
+    @Value("${app.ai.content.extracted-texts.max-chars:4000000}")
+    private int maxChars;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // Auto index creation is off, so the publicIds index declared on the entity is created here
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        resolver.resolveIndexFor(ExtractedText.class)
+            .forEach(index -> mongoTemplate.indexOps(ExtractedText.class).ensureIndex(index));
+    }
+
+    /**
+     * Text extracted earlier from the file uploaded under publicId
+     */
+    public Optional<String> findByPublicId(String publicId) {
+        if (!enabled || publicId == null || publicId.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findFirstByPublicIds(publicId)
+                .filter(ExtractedTextStore::isCurrent)
+                .map(ExtractedText::getText);
+        } catch (Exception e) {
+            log.warn("Extracted text lookup failed for {}: {}", publicId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Text extracted earlier from a file with this content, recording publicId as one of its keys
+     */
+    public Optional<String> findByHash(String sha256, String publicId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            Optional<ExtractedText> stored = repository.findById(sha256).filter(ExtractedTextStore::isCurrent);
+            if (stored.isPresent() && publicId != null && !publicId.isEmpty()
+                    && (stored.get().getPublicIds() == null || !stored.get().getPublicIds().contains(publicId))) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(sha256)),
+                    new Update().addToSet("publicIds", publicId), ExtractedText.class);
+            }
+            return stored.map(ExtractedText::getText);
+        } catch (Exception e) {
+            log.warn("Extracted text lookup failed for {}: {}", sha256, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Normalize and store the text a parser extracted from a file, replacing an entry of an older
+     * extractor. Only parser output belongs here, not notes standing in for content that could
+     * not be extracted, since the entry answers for the same bytes under any file name.
+     * The publicIds already recorded for the content are kept.
+     *
+     * @return the normalized text
+     */
+    public String save(String sha256, String publicId, String fileName, long sizeBytes, String text) {
+        String normalized = normalize(text);
+        if (!enabled || normalized.length() > maxChars) {
+            return normalized;
+        }
+        try {
+            Update update = new Update()
+                .set("fileName", fileName)
+                .set("sizeBytes", sizeBytes)
+                .set("text", normalized)
+                .set("pageOffsets", pageOffsets(normalized))
+                .set("extractorVersion", EXTRACTOR_VERSION)
+                .set("createdAt", new Date());
+            if (publicId == null || publicId.isEmpty()) {
+                update.setOnInsert("publicIds", new ArrayList<>());
+            } else {
+                update.addToSet("publicIds", publicId);
+            }
+            // Two publicIds with this content may both have missed and be saving it now
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(sha256)), update, ExtractedText.class);
+        } catch (Exception e) {
+            log.warn("Extracted text write failed for {}: {}", fileName, e.getMessage());
+        }
+        return normalized;
+    }
+
+    private static boolean isCurrent(ExtractedText stored) {
+        return EXTRACTOR_VERSION.equals(stored.getExtractorVersion()) && stored.getText() != null;
+    }
+
+    /**
+     * Unix line endings, no NUL characters or trailing spaces, at most one blank line in a row.
+     * Page breaks and slide headers are kept for the chunker.
+     */
+    static String normalize(String text) {
+        return text.replace("\r\n", "\n").replace('\r', '\n')
+            .replace("\u0000", "")
+            .replaceAll("[ \\t]+\\n", "\n")
+            .replaceAll("\\n{3,}", "\n\n");
+    }
+
+    static List<Integer> pageOffsets(String text) {
+        List<Integer> offsets = new ArrayList<>();
+        Matcher matcher = PAGE_START.matcher(text);
+        while (matcher.find()) {
+            if (matcher.end() < text.length()) {
+                offsets.add(matcher.end());
+            }
+        }
+        if (text.contains(TokenChunker.PAGE_BREAK)) {
+            // The first page has no break before it
+            offsets.add(0, 0);
+        }
+        return offsets;
+    }
+
+    /**
+     * SHA-256 of a file's content, hex encoded
+     */
+    public static String sha256(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.JourneyEnrollment;
+import com.trainingplatform.core.entities.RepProgress;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import com.trainingplatform.infrastructure.repositories.JourneyEnrollmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manages journey_enrollments, one small document per (journey, rep).
+ *
+ * Launching to a large cohort is done with unordered bulk upserts in fixed-size chunks,
+ * so the journey document no longer grows with the number of enrolled reps.
+ *
+ * The former enrolledRepIds field is @Transient, so a journey still embedding it would lose it
+ * on its next whole-document save. Embedded arrays are therefore moved out at startup, before
+ * the web server accepts requests, and again for each journey loaded for a whole-document save
+ * or found for a rep, which covers journeys written meanwhile by instances of an older version.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JourneyEnrollmentService implements SmartInitializingSingleton {
+
+    private static final String JOURNEYS_COLLECTION = "training_journeys";
+
+    private final JourneyEnrollmentRepository enrollmentRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${app.enrollments.bulk-chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Auto index creation is off, so the indexes declared on the entity are created here
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        resolver.resolveIndexFor(JourneyEnrollment.class)
+            .forEach(index -> mongoTemplate.indexOps(JourneyEnrollment.class).ensureIndex(index));
+        mongoTemplate.indexOps(RepProgress.class).ensureIndex(
+            new Index().on("repId", Sort.Direction.ASC).on("journeyId", Sort.Direction.ASC).named("rep_journey"));
+        // Sparse, so it only holds journeys not migrated yet; serves the per-rep read repair
+        mongoTemplate.indexOps(JOURNEYS_COLLECTION).ensureIndex(
+            new Index().on("enrolledRepIds", Sort.Direction.ASC).sparse().named("legacy_enrolled_reps"));
+
+        migrateEmbeddedEnrollments();
+    }
+
+    /**
+     * Enroll reps in a journey, replacing the previous cohort.
+     * Existing enrollments (and their status) are kept, reps missing from the list are unenrolled.
+     *
+     * @param createProgress also create an empty RepProgress per rep in the same pass,
+     *                       so the first progress call does not have to build it
+     * @return number of enrollments newly inserted
+     */
+    public int enrollReps(TrainingJourneyEntity journey, Collection<String> repIds, boolean createProgress) {
+        String journeyId = journey.getId();
+        Set<String> uniqueRepIds = new LinkedHashSet<>();
+        if (repIds != null) {
+            repIds.stream().filter(id -> id != null && !id.isBlank()).forEach(uniqueRepIds::add);
+        }
+
+        Document progressSkeleton = createProgress ? buildProgressSkeleton(journey) : null;
+        Date now = new Date();
+        int inserted = 0;
+
+        List<String> chunk = new ArrayList<>(Math.min(chunkSize, uniqueRepIds.size()));
+        for (String repId : uniqueRepIds) {
+            chunk.add(repId);
+            if (chunk.size() == chunkSize) {
+                inserted += writeChunk(journeyId, chunk, progressSkeleton, now);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inserted += writeChunk(journeyId, chunk, progressSkeleton, now);
+        }
+
+        // Same semantics as the former enrolledRepIds array: the list given at launch is the cohort
+        long removed = mongoTemplate.remove(
+            Query.query(Criteria.where("journeyId").is(journeyId).and("repId").nin(uniqueRepIds)),
+            JourneyEnrollment.class).getDeletedCount();
+
+        log.info("Enrolled {} reps in journey {} ({} new, {} removed, progress skeletons: {})",
+            uniqueRepIds.size(), journeyId, inserted, removed, createProgress);
+        return inserted;
+    }
+
+    private int writeChunk(String journeyId, List<String> repIds, Document progressSkeleton, Date now) {
+        BulkOperations enrollments = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JourneyEnrollment.class);
+        for (String repId : repIds) {
+            enrollments.upsert(
+                Query.query(Criteria.where("journeyId").is(journeyId).and("repId").is(repId)),
+                new Update().setOnInsert("enrolledAt", now).setOnInsert("status", "enrolled"));
+        }
+        int inserted = enrollments.execute().getUpserts().size();
+
+        if (progressSkeleton != null) {
+            BulkOperations progress = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RepProgress.class);
+            for (String repId : repIds) {
+                Document onInsert = new Document(progressSkeleton)
+                    .append("lastAccessed", now)
+                    .append("createdAt", now)
+                    .append("updatedAt", now);
+                progress.upsert(
+                    Query.query(Criteria.where("repId").is(repId).and("journeyId").is(journeyId)),
+                    Update.fromDocument(new Document("$setOnInsert", onInsert)));
+            }
+            progress.execute();
+        }
+        return inserted;
+    }
+
+    /**
+     * Same initial state as POST /rep-progress/start: every module and section not started.
+     * Built once per launch and copied for each rep.
+     */
+    private Document buildProgressSkeleton(TrainingJourneyEntity journey) {
+        RepProgress skeleton = new RepProgress();
+        Map<String, RepProgress.ModuleProgress> modules = new HashMap<>();
+        List<TrainingJourneyEntity.TrainingModuleEntity> journeyModules =
+            journey.getModules() != null ? journey.getModules() : List.of();
+
+        for (TrainingJourneyEntity.TrainingModuleEntity module : journeyModules) {
+            RepProgress.ModuleProgress moduleProgress = new RepProgress.ModuleProgress("not-started");
+            moduleProgress.setLastAccessed(null);
+            if (module.getSections() != null) {
+                for (TrainingJourneyEntity.SectionEntity section : module.getSections()) {
+                    RepProgress.SectionProgress sectionProgress = new RepProgress.SectionProgress(false);
+                    sectionProgress.setLastAccessed(null);
+                    moduleProgress.getSections().put(section.get_id(), sectionProgress);
+                }
+            }
+            modules.put(module.get_id(), moduleProgress);
+        }
+
+        skeleton.setModules(modules);
+        skeleton.setModuleTotal(journeyModules.size());
+        skeleton.updateCounters();
+
+        Document document = new Document();
+        mongoTemplate.getConverter().write(skeleton, document);
+        // Set by the upsert query or per rep
+        document.remove("_id");
+        document.remove("repId");
+        document.remove("journeyId");
+        document.remove("lastAccessed");
+        document.remove("createdAt");
+        document.remove("updatedAt");
+        return document;
+    }
+
+    /**
+     * Rep ids enrolled in a journey, read from the (journeyId, repId) index only
+     */
+    public List<String> getRepIds(String journeyId) {
+        migrateJourney(journeyId);
+        return distinctRepIds(Query.query(Criteria.where("journeyId").is(journeyId)));
+    }
+
+    /**
+     * Rep ids enrolled in any of the given journeys
+     */
+    public List<String> getRepIds(Collection<String> journeyIds) {
+        return distinctRepIds(Query.query(Criteria.where("journeyId").in(journeyIds)));
+    }
+
+    /**
+     * Journey ids a rep is enrolled in, read from the (repId, journeyId) index only
+     */
+    public List<String> getJourneyIds(String repId) {
+        migrateRep(repId);
+        Query query = Query.query(Criteria.where("repId").is(repId));
+        query.fields().include("journeyId").exclude("_id");
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(JourneyEnrollment.class))
+            .stream()
+            .map(document -> document.getString("journeyId"))
+            .toList();
+    }
+
+    public long countEnrollments(String journeyId) {
+        migrateJourney(journeyId);
+        return enrollmentRepository.countByJourneyId(journeyId);
+    }
+
+    public void deleteEnrollments(String journeyId) {
+        enrollmentRepository.deleteByJourneyId(journeyId);
+    }
+
+    private List<String> distinctRepIds(Query query) {
+        return mongoTemplate.findDistinct(query, "repId", JourneyEnrollment.class, String.class);
+    }
+
+    /**
+     * Migration for journeys launched before enrollments had their own collection:
+     * copies the embedded enrolledRepIds arrays to journey_enrollments and unsets them.
+     *
+     * @return number of journeys migrated
+     */
+    public int migrateEmbeddedEnrollments() {
+        int migrated = 0;
+        for (Document doc : mongoTemplate.find(legacyJourneys(Criteria.where("enrolledRepIds").exists(true)),
+                Document.class, JOURNEYS_COLLECTION)) {
+            migrateJourneyDocument(doc);
+            migrated++;
+        }
+
+        log.info("Enrollment migration finished: {} journeys migrated", migrated);
+        return migrated;
+    }
+
+    /**
+     * Migrate one journey if it still embeds enrolledRepIds
+     */
+    public void migrateJourney(String journeyId) {
+        Document doc = mongoTemplate.findOne(legacyJourneys(new Criteria().andOperator(
+            JourneyQuizStorageService.journeyIdCriteria(journeyId),
+            Criteria.where("enrolledRepIds").exists(true))), Document.class, JOURNEYS_COLLECTION);
+        if (doc != null) {
+            migrateJourneyDocument(doc);
+        }
+    }
+
+    /**
+     * Migrate the journeys whose embedded enrolledRepIds still list this rep
+     */
+    private void migrateRep(String repId) {
+        mongoTemplate.find(legacyJourneys(Criteria.where("enrolledRepIds").is(repId)), Document.class, JOURNEYS_COLLECTION)
+            .forEach(this::migrateJourneyDocument);
+    }
+
+    private static Query legacyJourneys(Criteria criteria) {
+        Query query = Query.query(criteria);
+        query.fields().include("enrolledRepIds").include("launchDate");
+        return query;
+    }
+
+    private void migrateJourneyDocument(Document doc) {
+        Object rawId = doc.get("_id");
+        String journeyId = rawId instanceof ObjectId ? ((ObjectId) rawId).toHexString() : String.valueOf(rawId);
+        List<String> repIds = doc.getList("enrolledRepIds", String.class, List.of()).stream()
+            .filter(id -> id != null && !id.isBlank())
+            .distinct()
+            .toList();
+        Date enrolledAt = doc.getDate("launchDate") != null ? doc.getDate("launchDate") : new Date();
+
+        for (int start = 0; start < repIds.size(); start += chunkSize) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JourneyEnrollment.class);
+            for (String repId : repIds.subList(start, Math.min(start + chunkSize, repIds.size()))) {
+                bulk.upsert(
+                    Query.query(Criteria.where("journeyId").is(journeyId).and("repId").is(repId)),
+                    new Update().setOnInsert("enrolledAt", enrolledAt).setOnInsert("status", "enrolled"));
+            }
+            bulk.execute();
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(rawId)),
+            new Update().unset("enrolledRepIds"), JOURNEYS_COLLECTION);
+        log.info("Moved {} embedded enrollments of journey {} to journey_enrollments", repIds.size(), journeyId);
+    }
+}
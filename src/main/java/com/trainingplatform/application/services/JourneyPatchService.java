@@ -0,0 +1,435 @@
+package com.trainingplatform.application.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import com.trainingplatform.domain.repositories.TrainingJourneyRepository;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies RFC 6902 (JSON Patch) operations to the modules, sections and quizzes of a
+ * training journey as a single positional Mongo update, instead of rewriting the document.
+ *
+ * Array elements are addressed by their _id, not by index:
+ *   /modules/-                                   add a module
+ *   /modules/{moduleId}                          replace or remove a module
+ *   /modules/{moduleId}/{field}                  add, replace or remove a module field
+ *   /modules/{moduleId}/sections/-               add a section
+ *   /modules/{moduleId}/sections/{sectionId}[/{field}...]
+ *   /modules/{moduleId}/quizzes/-                add a quiz (its body goes to module_quizzes)
+ *   /modules/{moduleId}/quizzes/{quizId}[/{field}]
+ *
+ * Supported ops are add, replace and remove. The whole patch is applied atomically and only
+ * if the journey is still at the expected version. Adds to the same array are appended in order
+ * and removes from the same array are combined; operations whose targets overlap otherwise
+ * (e.g. adding a module and editing another, or replacing a quiz and one of its fields) cannot
+ * go into one update and are rejected, to be sent as separate patches.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JourneyPatchService {
+
+    private static final String JOURNEYS_COLLECTION = "training_journeys";
+    private static final Set<String> READ_ONLY_FIELDS = Set.of("_id", "questions", "settings", "questionCount");
+
+    private final MongoTemplate mongoTemplate;
+    private final TrainingJourneyRepository journeyRepository;
+    private final JourneyQuizStorageService quizStorageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Apply a JSON Patch to a journey.
+     *
+     * @param expectedVersion version the client edited, or null to skip the check
+     * @return the patched journey, or empty if the journey does not exist
+     * @throws IllegalArgumentException for malformed operations or missing targets
+     * @throws OptimisticLockingFailureException if the journey changed since expectedVersion
+     */
+    public Optional<TrainingJourneyEntity> applyPatch(String journeyId, List<Map<String, Object>> operations, Long expectedVersion) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Patch must contain at least one operation");
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(toIdValue(journeyId)));
+        if (expectedVersion != null) {
+            // Journeys written before versioning have no version field and count as version 0
+            query.addCriteria(expectedVersion == 0
+                ? Criteria.where("version").in(0L, null)
+                : Criteria.where("version").is(expectedVersion));
+        }
+
+        PatchUpdate patch = new PatchUpdate();
+        List<Criteria> targetsMustExist = new ArrayList<>();
+        List<Runnable> afterCommit = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            applyOperation(journeyId, operations.get(i), i, patch, targetsMustExist, afterCommit);
+        }
+
+        if (!targetsMustExist.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(targetsMustExist.toArray(new Criteria[0])));
+        }
+
+        Update update = patch.build();
+        update.set("updatedAt", LocalDateTime.now());
+        update.inc("version", 1);
+
+        UpdateResult result = mongoTemplate.updateFirst(query, update, JOURNEYS_COLLECTION);
+
+        if (result.getMatchedCount() == 0) {
+            Optional<TrainingJourneyEntity> current = journeyRepository.findById(journeyId);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            long currentVersion = current.get().getVersion() != null ? current.get().getVersion() : 0L;
+            if (expectedVersion != null && currentVersion != expectedVersion) {
+                throw new OptimisticLockingFailureException(
+                    "Journey " + journeyId + " is at version " + currentVersion + ", expected " + expectedVersion);
+            }
+            throw new IllegalArgumentException("Patch target not found in journey " + journeyId);
+        }
+
+        afterCommit.forEach(Runnable::run);
+        log.info("Applied {} patch operations to journey {}", operations.size(), journeyId);
+
+        return journeyRepository.findById(journeyId);
+    }
+
+    private void applyOperation(String journeyId, Map<String, Object> operation, int index,
+                                PatchUpdate update, List<Criteria> targetsMustExist, List<Runnable> afterCommit) {
+        String op = (String) operation.get("op");
+        String path = (String) operation.get("path");
+        Object value = operation.get("value");
+
+        if (op == null || path == null) {
+            throw new IllegalArgumentException("Operation " + index + " must have 'op' and 'path'");
+        }
+        if (!op.equals("add") && !op.equals("replace") && !op.equals("remove")) {
+            throw new IllegalArgumentException("Unsupported patch op '" + op + "' (supported: add, replace, remove)");
+        }
+        if (!op.equals("remove") && !operation.containsKey("value")) {
+            throw new IllegalArgumentException("Operation " + index + " (" + op + ") requires a 'value'");
+        }
+
+        List<String> segments = parsePath(path);
+        if (segments.isEmpty() || !segments.get(0).equals("modules")) {
+            throw new IllegalArgumentException("Patch path must start with /modules: " + path);
+        }
+
+        // /modules/-
+        if (segments.size() == 2 && segments.get(1).equals("-")) {
+            requireOp(op, "add", path);
+            TrainingJourneyEntity.TrainingModuleEntity module = convert(value, TrainingJourneyEntity.TrainingModuleEntity.class);
+            update.push("modules", toDocument(prepareModule(journeyId, module, afterCommit)), path);
+            return;
+        }
+        if (segments.size() < 2) {
+            throw new IllegalArgumentException("Patch path must address a module: " + path);
+        }
+
+        String moduleId = segments.get(1);
+        targetsMustExist.add(Criteria.where("modules._id").in(idValues(moduleId)));
+
+        // /modules/{moduleId}
+        if (segments.size() == 2) {
+            if (op.equals("remove")) {
+                update.pull("modules", idValues(moduleId), path);
+                afterCommit.add(() -> quizStorageService.deleteModuleQuizBodies(moduleId));
+            } else {
+                TrainingJourneyEntity.TrainingModuleEntity module = convert(value, TrainingJourneyEntity.TrainingModuleEntity.class);
+                module.set_id(moduleId);
+                update.set(update.modulePath(moduleId), toDocument(prepareModule(journeyId, module, afterCommit)), path);
+            }
+            return;
+        }
+
+        // Every deeper path goes through the module array filter
+        String modulePath = update.modulePath(moduleId);
+
+        String child = segments.get(2);
+        if (!child.equals("sections") && !child.equals("quizzes")) {
+            // /modules/{moduleId}/{field...}
+            setField(op, modulePath, segments.subList(2, segments.size()), value,
+                TrainingJourneyEntity.TrainingModuleEntity.class, update, path);
+            return;
+        }
+
+        boolean isSection = child.equals("sections");
+        String arrayPath = modulePath + "." + child;
+
+        // /modules/{moduleId}/sections/- or /modules/{moduleId}/quizzes/-
+        if (segments.size() == 4 && segments.get(3).equals("-")) {
+            requireOp(op, "add", path);
+            Object element = isSection
+                ? prepareSection(convert(value, TrainingJourneyEntity.SectionEntity.class))
+                : prepareQuiz(journeyId, moduleId, convert(value, TrainingJourneyEntity.QuizEntity.class), afterCommit);
+            update.push(arrayPath, toDocument(element), path);
+            return;
+        }
+        if (segments.size() < 4) {
+            throw new IllegalArgumentException("Patch path must address a " + (isSection ? "section" : "quiz") + ": " + path);
+        }
+
+        String elementId = segments.get(3);
+        Criteria elementExists = Criteria.where("modules").elemMatch(
+            Criteria.where("_id").in(idValues(moduleId)).and(child + "._id").in(idValues(elementId)));
+
+        // /modules/{moduleId}/sections/{sectionId} or /modules/{moduleId}/quizzes/{quizId}
+        if (segments.size() == 4) {
+            if (op.equals("remove")) {
+                update.pull(arrayPath, idValues(elementId), path);
+                if (!isSection) {
+                    afterCommit.add(() -> quizStorageService.deleteModuleQuizBody(elementId));
+                }
+            } else {
+                Object element;
+                if (isSection) {
+                    TrainingJourneyEntity.SectionEntity section = convert(value, TrainingJourneyEntity.SectionEntity.class);
+                    section.set_id(elementId);
+                    element = prepareSection(section);
+                } else {
+                    TrainingJourneyEntity.QuizEntity quiz = convert(value, TrainingJourneyEntity.QuizEntity.class);
+                    quiz.set_id(elementId);
+                    element = prepareQuiz(journeyId, moduleId, quiz, afterCommit);
+                }
+                update.set(update.elementPath(arrayPath, child, elementId), toDocument(element), path);
+            }
+            targetsMustExist.add(elementExists);
+            return;
+        }
+
+        // /modules/{moduleId}/sections/{sectionId}/{field...} or /modules/{moduleId}/quizzes/{quizId}/{field}
+        setField(op, update.elementPath(arrayPath, child, elementId), segments.subList(4, segments.size()), value,
+            isSection ? TrainingJourneyEntity.SectionEntity.class : TrainingJourneyEntity.QuizEntity.class, update, path);
+        targetsMustExist.add(elementExists);
+    }
+
+    /**
+     * Set or unset a (possibly nested) field. The value is bound to the owning entity type first,
+     * so it is stored with the same types and field names as a full save would use.
+     */
+    private void setField(String op, String basePath, List<String> fieldSegments, Object value,
+                          Class<?> ownerType, PatchUpdate update, String patchPath) {
+        if (READ_ONLY_FIELDS.contains(fieldSegments.get(0))) {
+            throw new IllegalArgumentException("Field '" + fieldSegments.get(0) + "' cannot be patched on the journey"
+                + (fieldSegments.get(0).equals("questions") || fieldSegments.get(0).equals("settings")
+                    ? " (quiz bodies are edited through the quiz endpoints)" : ""));
+        }
+
+        String fieldPath = basePath + "." + String.join(".", fieldSegments);
+        if (op.equals("remove")) {
+            update.unset(fieldPath, patchPath);
+            return;
+        }
+
+        // Wrap the value as {a: {b: value}} and bind it to the owner type
+        Object wrapped = value;
+        for (int i = fieldSegments.size() - 1; i >= 0; i--) {
+            Map<String, Object> level = new LinkedHashMap<>();
+            level.put(fieldSegments.get(i), wrapped);
+            wrapped = level;
+        }
+
+        Object mapped = toDocument(convert(wrapped, ownerType));
+        for (String segment : fieldSegments) {
+            if (!(mapped instanceof Document) || !((Document) mapped).containsKey(segment)) {
+                throw new IllegalArgumentException("Unknown field '" + String.join("/", fieldSegments)
+                    + "' for " + ownerType.getSimpleName());
+            }
+            mapped = ((Document) mapped).get(segment);
+        }
+        update.set(fieldPath, mapped, patchPath);
+    }
+
+    private TrainingJourneyEntity.TrainingModuleEntity prepareModule(String journeyId,
+                                                                     TrainingJourneyEntity.TrainingModuleEntity module,
+                                                                     List<Runnable> afterCommit) {
+        if (!isObjectId(module.get_id())) {
+            module.set_id(new ObjectId().toHexString());
+        }
+        if (module.getSections() != null) {
+            module.getSections().forEach(this::prepareSection);
+        }
+        if (module.getQuizzes() != null) {
+            module.getQuizzes().forEach(quiz -> prepareQuiz(journeyId, module.get_id(), quiz, afterCommit));
+        }
+        return module;
+    }
+
+    private TrainingJourneyEntity.SectionEntity prepareSection(TrainingJourneyEntity.SectionEntity section) {
+        if (!isObjectId(section.get_id())) {
+            section.set_id(new ObjectId().toHexString());
+        }
+        return section;
+    }
+
+    /**
+     * Assign ids and the question count; the body itself is written only once the
+     * journey update has gone through, so a rejected patch never touches module_quizzes.
+     */
+    private TrainingJourneyEntity.QuizEntity prepareQuiz(String journeyId, String moduleId,
+                                                         TrainingJourneyEntity.QuizEntity quiz,
+                                                         List<Runnable> afterCommit) {
+        if (!isObjectId(quiz.get_id())) {
+            quiz.set_id(new ObjectId().toHexString());
+        }
+        if (quiz.getQuestions() != null) {
+            quiz.getQuestions().forEach(question -> {
+                if (!isObjectId(question.get_id())) question.set_id(new ObjectId().toHexString());
+            });
+            quiz.setQuestionCount(quiz.getQuestions().size());
+            afterCommit.add(() -> quizStorageService.externalizeQuizBody(journeyId, moduleId, quiz));
+        }
+        return quiz;
+    }
+
+    private <T> T convert(Object value, Class<T> type) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object for " + type.getSimpleName());
+        }
+        try {
+            return objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        document.remove("_class");
+        return document;
+    }
+
+    private List<String> parsePath(String path) {
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Patch path must start with '/': " + path);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : Arrays.asList(path.substring(1).split("/", -1))) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return segments;
+    }
+
+    private void requireOp(String op, String expected, String path) {
+        if (!op.equals(expected)) {
+            throw new IllegalArgumentException("Only '" + expected + "' is allowed on " + path);
+        }
+    }
+
+    // Embedded _ids may be stored as ObjectId or as plain strings depending on how they were written
+    private static List<Object> idValues(String id) {
+        return isObjectId(id) ? List.of(new ObjectId(id), id) : List.of(id);
+    }
+
+    private Object toIdValue(String id) {
+        return isObjectId(id) ? new ObjectId(id) : id;
+    }
+
+    private static boolean isObjectId(String id) {
+        return id != null && ObjectId.isValid(id);
+    }
+
+    /**
+     * Collects the operations of one patch into a single Mongo update.
+     *
+     * A Mongo update cannot write a path twice, nor a path and one of its parents, and a repeated
+     * push or set on the same key would silently replace the earlier one. Array filters are
+     * therefore shared by every operation on the same element, pushes to the same array are
+     * combined with $each and pulls with $in, and any other overlap is rejected.
+     */
+    private static class PatchUpdate {
+
+        private final Update update = new Update();
+        private final Map<String, String> filterIdentifiers = new LinkedHashMap<>();
+        private final Map<String, List<Object>> pushes = new LinkedHashMap<>();
+        private final Map<String, List<Object>> pulls = new LinkedHashMap<>();
+        // Written Mongo path -> patch path that wrote it
+        private final Map<String, String> claimedPaths = new LinkedHashMap<>();
+
+        String modulePath(String moduleId) {
+            return "modules.$[" + filterIdentifier("m", moduleId) + "]";
+        }
+
+        String elementPath(String arrayPath, String child, String elementId) {
+            return arrayPath + ".$[" + filterIdentifier(child.equals("sections") ? "s" : "q", elementId) + "]";
+        }
+
+        void set(String key, Object value, String patchPath) {
+            claim(key, patchPath);
+            update.set(key, value);
+        }
+
+        void unset(String key, String patchPath) {
+            claim(key, patchPath);
+            update.unset(key);
+        }
+
+        void push(String key, Object value, String patchPath) {
+            if (!pushes.containsKey(key)) {
+                claim(key, patchPath);
+                pushes.put(key, new ArrayList<>());
+            }
+            pushes.get(key).add(value);
+        }
+
+        void pull(String key, List<Object> ids, String patchPath) {
+            if (!pulls.containsKey(key)) {
+                claim(key, patchPath);
+                pulls.put(key, new ArrayList<>());
+            }
+            pulls.get(key).addAll(ids);
+        }
+
+        Update build() {
+            pushes.forEach((key, values) -> update.push(key).each(values.toArray()));
+            pulls.forEach((key, ids) -> update.pull(key, new Document("_id", new Document("$in", ids))));
+            return update;
+        }
+
+        private String filterIdentifier(String prefix, String id) {
+            String identifier = filterIdentifiers.get(prefix + ":" + id);
+            if (identifier == null) {
+                identifier = prefix + filterIdentifiers.size();
+                filterIdentifiers.put(prefix + ":" + id, identifier);
+                update.filterArray(Criteria.where(identifier + "._id").in(idValues(id)));
+            }
+            return identifier;
+        }
+
+        private void claim(String key, String patchPath) {
+            for (Map.Entry<String, String> claimed : claimedPaths.entrySet()) {
+                String other = claimed.getKey();
+                if (other.equals(key) || other.startsWith(key + ".") || key.startsWith(other + ".")) {
+                    throw new IllegalArgumentException("Patch operations on " + claimed.getValue() + " and " + patchPath
+                        + " overlap and cannot be applied together, send them as separate patches");
+                }
+            }
+            claimedPaths.put(key, patchPath);
+        }
+    }
+}
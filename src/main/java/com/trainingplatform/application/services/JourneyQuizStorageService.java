@@ -0,0 +1,385 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.ExamFinalQuiz;
+import com.trainingplatform.core.entities.ModuleQuiz;
+import com.trainingplatform.domain.entities.TrainingJourneyEntity;
+import com.trainingplatform.infrastructure.repositories.ExamFinalQuizRepository;
+import com.trainingplatform.infrastructure.repositories.ModuleQuizRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps quiz and final exam bodies (questions, answer keys, settings) out of the
+ * training_journeys document.
+ *
+ * The journey only embeds quiz references (_id, title, passing score, question count).
+ * Bodies live in module_quizzes / exam_final_quizzes under the same _id, so existing
+ * RepProgress quiz results keyed by quiz _id keep working.
+ *
+ * The body fields are @Transient, so a journey still embedding bodies would lose them on its
+ * next whole-document save. Embedded bodies are therefore moved out at startup, before the
+ * web server accepts requests, and again for each journey right before it is loaded for a
+ * whole-document save, which covers journeys written meanwhile by instances of an older version.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JourneyQuizStorageService implements SmartInitializingSingleton {
+
+    private static final String JOURNEYS_COLLECTION = "training_journeys";
+
+    private final ModuleQuizRepository moduleQuizRepository;
+    private final ExamFinalQuizRepository examFinalQuizRepository;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Write the quiz and final exam bodies carried by a journey to their own collections,
+     * then strip them from the entity and keep only the question count.
+     * Must be called before the journey itself is saved.
+     * Quizzes without a body (questions == null) are references only and are left untouched.
+     */
+    public void externalizeQuizBodies(TrainingJourneyEntity journey) {
+        // Bodies are keyed by journey id, so new journeys get their id before the first save
+        if (journey.getId() == null) {
+            journey.setId(new ObjectId().toHexString());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ModuleQuiz> moduleQuizzes = new ArrayList<>();
+
+        if (journey.getModules() != null) {
+            for (TrainingJourneyEntity.TrainingModuleEntity module : journey.getModules()) {
+                if (module.getQuizzes() == null) continue;
+
+                for (TrainingJourneyEntity.QuizEntity quiz : module.getQuizzes()) {
+                    if (quiz.getQuestions() == null) continue;
+
+                    moduleQuizzes.add(toModuleQuiz(journey.getId(), module.get_id(), quiz, now));
+                    stripBody(quiz);
+                }
+            }
+        }
+
+        if (!moduleQuizzes.isEmpty()) {
+            moduleQuizRepository.saveAll(moduleQuizzes);
+            log.info("Stored {} module quiz bodies for journey {}", moduleQuizzes.size(), journey.getId());
+        }
+
+        TrainingJourneyEntity.FinalExamEntity finalExam = journey.getFinalExam();
+        if (finalExam != null && finalExam.getQuestions() != null) {
+            examFinalQuizRepository.save(toExamFinalQuiz(journey.getId(), finalExam, now));
+            finalExam.setQuestionCount(finalExam.getQuestions().size());
+            finalExam.setQuestions(null);
+            finalExam.setSettings(null);
+            log.info("Stored final exam body {} for journey {}", finalExam.get_id(), journey.getId());
+        }
+    }
+
+    /**
+     * Store the body of a single module quiz and strip it from the reference.
+     * Used by partial journey updates, where only one quiz is written.
+     */
+    public void externalizeQuizBody(String journeyId, String moduleId, TrainingJourneyEntity.QuizEntity quiz) {
+        if (quiz.getQuestions() == null) return;
+
+        moduleQuizRepository.save(toModuleQuiz(journeyId, moduleId, quiz, LocalDateTime.now()));
+        stripBody(quiz);
+    }
+
+    /**
+     * Delete the bodies of module quizzes removed from a journey
+     */
+    public void deleteModuleQuizBody(String quizId) {
+        moduleQuizRepository.deleteById(quizId);
+    }
+
+    public void deleteModuleQuizBodies(String moduleId) {
+        moduleQuizRepository.deleteByModuleId(moduleId);
+    }
+
+    /**
+     * Load a module quiz body, scoped to the journey and module it belongs to
+     */
+    public Optional<ModuleQuiz> getModuleQuizBody(String journeyId, String moduleId, String quizId) {
+        return moduleQuizRepository.findByIdAndTrainingId(quizId, journeyId)
+            .filter(quiz -> moduleId.equals(quiz.getModuleId()));
+    }
+
+    /**
+     * Load the final exam body referenced by a journey
+     */
+    public Optional<ExamFinalQuiz> getFinalExamBody(TrainingJourneyEntity journey) {
+        if (journey.getFinalExam() != null && journey.getFinalExam().get_id() != null) {
+            Optional<ExamFinalQuiz> exam = examFinalQuizRepository.findById(journey.getFinalExam().get_id());
+            if (exam.isPresent()) {
+                return exam;
+            }
+        }
+        return examFinalQuizRepository.findFirstByJourneyId(journey.getId());
+    }
+
+    /**
+     * Delete every quiz and final exam body attached to a journey
+     */
+    public void deleteQuizBodies(String journeyId) {
+        moduleQuizRepository.deleteByTrainingId(journeyId);
+        examFinalQuizRepository.deleteByJourneyId(journeyId);
+    }
+
+    /**
+     * Runs before the web server starts, so no request can save a journey with embedded bodies
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrateEmbeddedQuizBodies();
+    }
+
+    /**
+     * Migration for journeys written before quiz bodies were split out.
+     * Reads the raw documents (the body fields are @Transient on the entity), copies the
+     * bodies to module_quizzes / exam_final_quizzes and unsets them from the journey.
+     *
+     * @return number of journeys migrated
+     */
+    public int migrateEmbeddedQuizBodies() {
+        int migrated = 0;
+        for (Document doc : mongoTemplate.find(Query.query(embeddedBodies()), Document.class, JOURNEYS_COLLECTION)) {
+            migrateJourneyDocument(doc);
+            migrated++;
+        }
+
+        log.info("Quiz body migration finished: {} journeys migrated", migrated);
+        return migrated;
+    }
+
+    /**
+     * Move the bodies still embedded in one journey out, if it has any.
+     * Call before loading a journey that will be saved whole.
+     */
+    public void migrateJourney(String journeyId) {
+        Query query = Query.query(new Criteria().andOperator(journeyIdCriteria(journeyId), embeddedBodies()));
+        Document doc = mongoTemplate.findOne(query, Document.class, JOURNEYS_COLLECTION);
+        if (doc != null) {
+            migrateJourneyDocument(doc);
+        }
+    }
+
+    private static Criteria embeddedBodies() {
+        return new Criteria().orOperator(
+            Criteria.where("modules.quizzes.questions").exists(true),
+            Criteria.where("finalExam.questions").exists(true)
+        );
+    }
+
+    /** Journey ids are stored as ObjectId when they are valid hex, as strings otherwise */
+    static Criteria journeyIdCriteria(String journeyId) {
+        return ObjectId.isValid(journeyId)
+            ? Criteria.where("_id").in(new ObjectId(journeyId), journeyId)
+            : Criteria.where("_id").is(journeyId);
+    }
+
+    private void migrateJourneyDocument(Document doc) {
+        String journeyId = idToString(doc.get("_id"));
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update();
+        List<ModuleQuiz> moduleQuizzes = new ArrayList<>();
+
+        List<Document> modules = doc.getList("modules", Document.class);
+        if (modules != null) {
+            for (int m = 0; m < modules.size(); m++) {
+                Document module = modules.get(m);
+                List<Document> quizzes = module.getList("quizzes", Document.class);
+                if (quizzes == null) continue;
+
+                for (int q = 0; q < quizzes.size(); q++) {
+                    Document quizDoc = quizzes.get(q);
+                    if (!quizDoc.containsKey("questions")) continue;
+
+                    TrainingJourneyEntity.QuizEntity quiz = readQuiz(quizDoc);
+                    if (quiz.get_id() == null || !ObjectId.isValid(quiz.get_id())) {
+                        quiz.set_id(new ObjectId().toHexString());
+                        update.set("modules." + m + ".quizzes." + q + "._id", quiz.get_id());
+                    }
+                    moduleQuizzes.add(toModuleQuiz(journeyId, idToString(module.get("_id")), quiz, now));
+
+                    String path = "modules." + m + ".quizzes." + q;
+                    update.set(path + ".questionCount", quiz.getQuestions().size());
+                    update.unset(path + ".questions");
+                    update.unset(path + ".settings");
+                }
+            }
+        }
+
+        Document finalExamDoc = doc.get("finalExam", Document.class);
+        ExamFinalQuiz examBody = null;
+        if (finalExamDoc != null && finalExamDoc.containsKey("questions")) {
+            TrainingJourneyEntity.FinalExamEntity finalExam = readFinalExam(finalExamDoc);
+            if (finalExam.get_id() == null || !ObjectId.isValid(finalExam.get_id())) {
+                finalExam.set_id(new ObjectId().toHexString());
+                update.set("finalExam._id", finalExam.get_id());
+            }
+            examBody = toExamFinalQuiz(journeyId, finalExam, now);
+
+            update.set("finalExam.questionCount", finalExam.getQuestions().size());
+            update.unset("finalExam.questions");
+            update.unset("finalExam.settings");
+        }
+
+        // Bodies first, so an interrupted run never loses questions
+        if (!moduleQuizzes.isEmpty()) {
+            moduleQuizRepository.saveAll(moduleQuizzes);
+        }
+        if (examBody != null) {
+            examFinalQuizRepository.save(examBody);
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(doc.get("_id"))), update, JOURNEYS_COLLECTION);
+
+        log.info("Migrated quiz bodies for journey {} ({} module quizzes, final exam: {})",
+            journeyId, moduleQuizzes.size(), examBody != null);
+    }
+
+    private void stripBody(TrainingJourneyEntity.QuizEntity quiz) {
+        quiz.setQuestionCount(quiz.getQuestions().size());
+        quiz.setQuestions(null);
+        quiz.setSettings(null);
+    }
+
+    private TrainingJourneyEntity.QuizEntity readQuiz(Document quizDoc) {
+        TrainingJourneyEntity.QuizEntity quiz = new TrainingJourneyEntity.QuizEntity();
+        quiz.set_id(idToString(quizDoc.get("_id")));
+        quiz.setTitle(quizDoc.getString("title"));
+        quiz.setDescription(quizDoc.getString("description"));
+        quiz.setPassingScore(quizDoc.getInteger("passingScore"));
+        quiz.setTimeLimit(quizDoc.getInteger("timeLimit"));
+        quiz.setMaxAttempts(quizDoc.getInteger("maxAttempts"));
+        quiz.setQuestions(readQuestions(quizDoc));
+        quiz.setSettings(readSettings(quizDoc));
+        return quiz;
+    }
+
+    private TrainingJourneyEntity.FinalExamEntity readFinalExam(Document examDoc) {
+        TrainingJourneyEntity.FinalExamEntity exam = new TrainingJourneyEntity.FinalExamEntity();
+        exam.set_id(idToString(examDoc.get("_id")));
+        exam.setTitle(examDoc.getString("title"));
+        exam.setDescription(examDoc.getString("description"));
+        exam.setPassingScore(examDoc.getInteger("passingScore"));
+        exam.setTimeLimit(examDoc.getInteger("timeLimit"));
+        exam.setMaxAttempts(examDoc.getInteger("maxAttempts"));
+        exam.setQuestions(readQuestions(examDoc));
+        exam.setSettings(readSettings(examDoc));
+        return exam;
+    }
+
+    private List<TrainingJourneyEntity.QuizQuestion> readQuestions(Document parent) {
+        List<TrainingJourneyEntity.QuizQuestion> questions = new ArrayList<>();
+        List<Document> questionDocs = parent.getList("questions", Document.class);
+        if (questionDocs == null) return questions;
+
+        for (Document questionDoc : questionDocs) {
+            TrainingJourneyEntity.QuizQuestion question = mongoTemplate.getConverter()
+                .read(TrainingJourneyEntity.QuizQuestion.class, questionDoc);
+            question.set_id(idToString(questionDoc.get("_id")));
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    private TrainingJourneyEntity.QuizSettings readSettings(Document parent) {
+        Document settingsDoc = parent.get("settings", Document.class);
+        return settingsDoc != null
+            ? mongoTemplate.getConverter().read(TrainingJourneyEntity.QuizSettings.class, settingsDoc)
+            : null;
+    }
+
+    private ModuleQuiz toModuleQuiz(String journeyId, String moduleId, TrainingJourneyEntity.QuizEntity quiz, LocalDateTime now) {
+        return ModuleQuiz.builder()
+            ._id(quiz.get_id())
+            .moduleId(moduleId)
+            .trainingId(journeyId)
+            .title(quiz.getTitle())
+            .description(quiz.getDescription())
+            .questions(quiz.getQuestions().stream().map(this::toModuleQuizQuestion).toList())
+            .passingScore(quiz.getPassingScore())
+            .timeLimit(quiz.getTimeLimit())
+            .maxAttempts(quiz.getMaxAttempts())
+            .settings(quiz.getSettings() != null ? ModuleQuiz.QuizSettings.builder()
+                .shuffleQuestions(quiz.getSettings().getShuffleQuestions())
+                .shuffleOptions(quiz.getSettings().getShuffleOptions())
+                .showCorrectAnswers(quiz.getSettings().getShowCorrectAnswers())
+                .allowReview(quiz.getSettings().getAllowReview())
+                .showExplanations(quiz.getSettings().getShowExplanations())
+                .build() : null)
+            .createdAt(now)
+            .updatedAt(now)
+            .build();
+    }
+
+    private ModuleQuiz.QuizQuestion toModuleQuizQuestion(TrainingJourneyEntity.QuizQuestion question) {
+        return ModuleQuiz.QuizQuestion.builder()
+            ._id(question.get_id())
+            .question(question.getQuestion())
+            .type(question.getType())
+            .options(question.getOptions())
+            .correctAnswer(question.getCorrectAnswer())
+            .explanation(question.getExplanation())
+            .points(question.getPoints())
+            .orderIndex(question.getOrderIndex())
+            .imageUrl(question.getImageUrl())
+            .build();
+    }
+
+    private ExamFinalQuiz toExamFinalQuiz(String journeyId, TrainingJourneyEntity.FinalExamEntity exam, LocalDateTime now) {
+        return ExamFinalQuiz.builder()
+            ._id(exam.get_id())
+            .trainingId(journeyId)
+            .journeyId(journeyId)
+            .title(exam.getTitle())
+            .description(exam.getDescription())
+            .questions(exam.getQuestions().stream().map(this::toExamQuestion).toList())
+            .passingScore(exam.getPassingScore())
+            .timeLimit(exam.getTimeLimit())
+            .maxAttempts(exam.getMaxAttempts())
+            .settings(exam.getSettings() != null ? ExamFinalQuiz.QuizSettings.builder()
+                .shuffleQuestions(exam.getSettings().getShuffleQuestions())
+                .shuffleOptions(exam.getSettings().getShuffleOptions())
+                .showCorrectAnswers(exam.getSettings().getShowCorrectAnswers())
+                .allowReview(exam.getSettings().getAllowReview())
+                .showExplanations(exam.getSettings().getShowExplanations())
+                .build() : null)
+            .createdAt(now)
+            .updatedAt(now)
+            .build();
+    }
+
+    private ExamFinalQuiz.QuizQuestion toExamQuestion(TrainingJourneyEntity.QuizQuestion question) {
+        return ExamFinalQuiz.QuizQuestion.builder()
+            ._id(question.get_id())
+            .question(question.getQuestion())
+            .type(question.getType())
+            .options(question.getOptions())
+            .correctAnswer(question.getCorrectAnswer())
+            .explanation(question.getExplanation())
+            .points(question.getPoints())
+            .orderIndex(question.getOrderIndex())
+            .imageUrl(question.getImageUrl())
+            .build();
+    }
+
+    private String idToString(Object id) {
+        if (id == null) return null;
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : id.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package com.trainingplatform.application.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Extracts the JSON object from a model completion.
+ *
+ * The object may be surrounded by prose or a ```json fence. Parsing starts at its first brace
+ * with Jackson's streaming parser, which stops where that object ends, so whatever follows is
+ * never read. Trailing commas and raw control characters in strings, both common in model
+ * output, are accepted. When the text ends inside the object, typically a completion cut off at
+ * max_tokens, the object is cut back to its last complete array element and closed, so the
+ * questions or modules generated up to that point are kept.
+ */
+@Component
+@Slf4j
+public class JsonResponseExtractor {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectReader reader;
+
+    public JsonResponseExtractor(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(MAP_TYPE)
+            .with(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .with(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS);
+    }
+
+    /**
+     * extract for a complete model response, logging the start of content it cannot parse
+     *
+     * @throws RuntimeException "Failed to parse AI response: ..." if the content holds no usable JSON object
+     */
+    public Map<String, Object> parseAIResponse(String content) {
+        try {
+            return extract(content);
+        } catch (Exception e) {
+            log.error("Failed to parse AI response: {}", e.getMessage());
+            log.error("Content preview: {}", content.substring(0, Math.min(200, content.length())));
+            throw new RuntimeException("Failed to parse AI response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @throws RuntimeException if the content holds no JSON object, or one that cannot be repaired
+     */
+    public Map<String, Object> extract(String content) {
+        int start = objectStart(content);
+        if (start < 0) {
+            throw new RuntimeException("Response doesn't contain valid JSON structure");
+        }
+
+        try {
+            return reader.readValue(content.substring(start));
+        } catch (JsonEOFException e) {
+            String repaired = closeAfterLastElement(content, start);
+            if (repaired == null) {
+                throw new RuntimeException("Response JSON is incomplete: " + e.getOriginalMessage());
+            }
+            log.warn("Response JSON is incomplete, closing it after its last complete array element");
+            try {
+                return reader.readValue(repaired);
+            } catch (JsonProcessingException repairFailure) {
+                throw new RuntimeException("Response JSON is incomplete: " + e.getOriginalMessage());
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Response JSON is invalid: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * First brace of a fenced block if there is one, of the content otherwise
+     */
+    private static int objectStart(String content) {
+        int fence = content.indexOf("```");
+        int start = fence >= 0 ? content.indexOf('{', fence) : -1;
+        return start >= 0 ? start : content.indexOf('{');
+    }
+
+    /**
+     * The object cut right after the last object or array that completed inside an array,
+     * with the brackets still open at that point closed, or null if no element completed
+     */
+    private static String closeAfterLastElement(String content, int start) {
+        // Closing brackets of the open containers, innermost last
+        StringBuilder open = new StringBuilder();
+        boolean inString = false;
+        boolean escaped = false;
+        int cut = -1;
+        String openAtCut = null;
+
+        for (int i = start; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> open.append('}');
+                case '[' -> open.append(']');
+                case '}', ']' -> {
+                    if (open.isEmpty()) {
+                        return null;
+                    }
+                    open.setLength(open.length() - 1);
+                    if (!open.isEmpty() && open.charAt(open.length() - 1) == ']') {
+                        cut = i + 1;
+                        openAtCut = open.toString();
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        if (cut < 0) {
+            return null;
+        }
+        return content.substring(start, cut) + new StringBuilder(openAtCut).reverse();
+    }
+}
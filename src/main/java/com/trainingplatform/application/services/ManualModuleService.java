@@ -22,6 +22,8 @@ public class ManualModuleService {
     private final ManualTrainingModuleRepository moduleRepository;
     private final ManualQuizRepository quizRepository;
     private final CloudinaryService cloudinaryService;
+    private final QuizPregenerationService quizPregenerationService;
+    private final QuestionSimilarityIndex questionIndex;
     
     /**
      * Create a new module
@@ -69,7 +71,9 @@ public class ManualModuleService {
         existing.setUpdatedAt(LocalDateTime.now());
         
         log.info("Updating module: {}", id);
-        return moduleRepository.save(existing);
+        ManualTrainingModule saved = moduleRepository.save(existing);
+        quizPregenerationService.onModuleChanged(saved);
+        return saved;
     }
     
     /**
@@ -89,7 +93,9 @@ public class ManualModuleService {
         module.setUpdatedAt(LocalDateTime.now());
         
         log.info("Adding section to module: {}", moduleId);
-        return moduleRepository.save(module);
+        ManualTrainingModule saved = moduleRepository.save(module);
+        quizPregenerationService.onModuleChanged(saved);
+        return saved;
     }
     
     /**
@@ -112,7 +118,9 @@ public class ManualModuleService {
         module.setUpdatedAt(LocalDateTime.now());
         
         log.info("Updating section {} in module: {}", sectionId, moduleId);
-        return moduleRepository.save(module);
+        ManualTrainingModule saved = moduleRepository.save(module);
+        quizPregenerationService.onModuleChanged(saved);
+        return saved;
     }
     
     /**
@@ -125,7 +133,9 @@ public class ManualModuleService {
         module.setUpdatedAt(LocalDateTime.now());
         
         log.info("Deleting section {} from module: {}", sectionId, moduleId);
-        return moduleRepository.save(module);
+        ManualTrainingModule saved = moduleRepository.save(module);
+        quizPregenerationService.onModuleChanged(saved);
+        return saved;
     }
     
     /**
@@ -179,9 +189,11 @@ public class ManualModuleService {
         
         // Delete associated quizzes
         quizRepository.deleteByModuleId(id);
+        questionIndex.invalidate(module.getTrainingId());
         
         // Delete module
         moduleRepository.delete(module);
+        quizPregenerationService.onModuleDeleted(id);
         
         log.info("Deleted module: {}", id);
     }
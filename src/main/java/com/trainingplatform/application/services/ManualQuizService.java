@@ -21,6 +21,7 @@ public class ManualQuizService {
     
     private final ManualQuizRepository quizRepository;
     private final TrainingProgressRepository progressRepository;
+    private final QuestionSimilarityIndex questionIndex;
     
     /**
      * Create a new quiz
@@ -42,7 +43,9 @@ public class ManualQuizService {
         }
         
         log.info("Creating new quiz: {} for module: {}", quiz.getTitle(), quiz.getModuleId());
-        return quizRepository.save(quiz);
+        ManualQuiz saved = quizRepository.save(quiz);
+        questionIndex.add(saved);
+        return saved;
     }
     
     /**
@@ -83,7 +86,9 @@ public class ManualQuizService {
         existing.setUpdatedAt(LocalDateTime.now());
         
         log.info("Updating quiz: {}", id);
-        return quizRepository.save(existing);
+        ManualQuiz saved = quizRepository.save(existing);
+        questionIndex.invalidate(saved.getTrainingId());
+        return saved;
     }
     
     /**
@@ -103,7 +108,9 @@ public class ManualQuizService {
         quiz.setUpdatedAt(LocalDateTime.now());
         
         log.info("Adding question to quiz: {}", quizId);
-        return quizRepository.save(quiz);
+        ManualQuiz saved = quizRepository.save(quiz);
+        questionIndex.add(saved.getTrainingId(), question);
+        return saved;
     }
     
     /**
@@ -129,7 +136,9 @@ public class ManualQuizService {
         quiz.setUpdatedAt(LocalDateTime.now());
         
         log.info("Updating question {} in quiz: {}", questionId, quizId);
-        return quizRepository.save(quiz);
+        ManualQuiz saved = quizRepository.save(quiz);
+        questionIndex.invalidate(saved.getTrainingId());
+        return saved;
     }
     
     /**
@@ -142,7 +151,9 @@ public class ManualQuizService {
         quiz.setUpdatedAt(LocalDateTime.now());
         
         log.info("Deleting question {} from quiz: {}", questionId, quizId);
-        return quizRepository.save(quiz);
+        ManualQuiz saved = quizRepository.save(quiz);
+        questionIndex.invalidate(saved.getTrainingId());
+        return saved;
     }
     
     /**
@@ -324,7 +335,8 @@ public class ManualQuizService {
         }
     }
     
-    private boolean checkAnswer(ManualQuiz.QuizQuestion question, Object userAnswer) {
+    // Package-private for the JMH grading benchmark
+    boolean checkAnswer(ManualQuiz.QuizQuestion question, Object userAnswer) {
         if (userAnswer == null) return false;
         
         Object correctAnswer = question.getCorrectAnswer();
@@ -410,6 +422,7 @@ public class ManualQuizService {
     public void deleteQuiz(String id) {
         ManualQuiz quiz = getQuizById(id);
         quizRepository.delete(quiz);
+        questionIndex.invalidate(quiz.getTrainingId());
         
         log.info("Deleted quiz: {}", id);
     }
@@ -24,6 +24,7 @@ public class ManualTrainingService {
     private final ManualTrainingRepository trainingRepository;
     private final ManualTrainingModuleRepository moduleRepository;
     private final ManualQuizRepository quizRepository;
+    private final QuestionSimilarityIndex questionIndex;
     private final CloudinaryService cloudinaryService;
     
     /**
@@ -138,6 +139,7 @@ public class ManualTrainingService {
         
         // Delete all quizzes
         quizRepository.deleteByTrainingId(id);
+        questionIndex.invalidate(id);
         
         // Delete training
         trainingRepository.delete(training);
@@ -0,0 +1,287 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.ManualQuiz;
+import com.trainingplatform.infrastructure.repositories.ManualQuizRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Near-duplicate detection for quiz questions of a training (app.ai.question-dedup).
+ *
+ * Each question text is normalized, cut into word bigrams and summarized by a 64-value MinHash
+ * signature. Signatures are bucketed by locality-sensitive hashing, 16 bands of 4 values, so a
+ * lookup only compares the questions sharing a band with it instead of the whole bank; pairs
+ * whose estimated Jaccard similarity reaches similarity-threshold count as duplicates.
+ *
+ * The index of a training is loaded from manual_quizzes on first use and kept up to date by
+ * ManualQuizService and the automatic quiz generation; edits that remove or rewrite questions,
+ * and deleting a module or training, drop it so it is reloaded. The most recently used
+ * max-trainings indexes stay in memory.
+ *
+ * Indexes are per instance: edits made through another instance are only seen here once the
+ * index is older than max-age-ms and reloaded. Until then a removed question can still count as
+ * a duplicate, and a new one may be missed.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class QuestionSimilarityIndex {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final long[] SEEDS = new SplittableRandom(0x5EED).longs(HASHES).toArray();
+
+    private final ManualQuizRepository quizRepository;
+
+    @Value("${app.ai.question-dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.question-dedup.similarity-threshold:0.6}")
+    private double similarityThreshold;
+
+    @Value("${app.ai.question-dedup.max-trainings:200}")
+    private int maxTrainings;
+
+    @Value("${app.ai.question-dedup.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    private final Map<String, Bank> banks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bank> eldest) {
+            return size() > maxTrainings;
+        }
+    };
+
+    /**
+     * Remove, in place, the questions of quizzes about to be saved for a training that nearly
+     * duplicate a question already stored for it, or an earlier question of these quizzes.
+     * The index is not changed; add the quizzes once they are saved.
+     *
+     * @return the number of questions removed
+     */
+    public int removeDuplicates(String trainingId, List<ManualQuiz> quizzes) {
+        if (!enabled || trainingId == null) {
+            return 0;
+        }
+        Bank stored = bankOrEmpty(trainingId);
+        Bank incoming = new Bank();
+        int removed = 0;
+        for (ManualQuiz quiz : quizzes) {
+            if (quiz.getQuestions() == null) {
+                continue;
+            }
+            int before = quiz.getQuestions().size();
+            quiz.getQuestions().removeIf(question -> {
+                long[] signature = signature(question.getQuestion());
+                if (signature == null) {
+                    return false;
+                }
+                if (stored.containsSimilar(signature, similarityThreshold)
+                        || incoming.containsSimilar(signature, similarityThreshold)) {
+                    return true;
+                }
+                incoming.add(signature);
+                return false;
+            });
+            removed += before - quiz.getQuestions().size();
+        }
+        if (removed > 0) {
+            log.info("Removed {} near-duplicate questions for training {}", removed, trainingId);
+        }
+        return removed;
+    }
+
+    /**
+     * Index the questions of a saved quiz
+     */
+    public void add(ManualQuiz quiz) {
+        if (!enabled || quiz.getTrainingId() == null || quiz.getQuestions() == null) {
+            return;
+        }
+        Bank bank = loadedBank(quiz.getTrainingId());
+        if (bank != null) {
+            quiz.getQuestions().forEach(question -> bank.add(signature(question.getQuestion())));
+        }
+    }
+
+    /**
+     * Index a question added to a saved quiz of the training
+     */
+    public void add(String trainingId, ManualQuiz.QuizQuestion question) {
+        if (!enabled || trainingId == null) {
+            return;
+        }
+        Bank bank = loadedBank(trainingId);
+        if (bank != null) {
+            bank.add(signature(question.getQuestion()));
+        }
+    }
+
+    /**
+     * Forget the index of a training whose questions were rewritten or removed; it is rebuilt on next use
+     */
+    public void invalidate(String trainingId) {
+        if (trainingId != null) {
+            synchronized (banks) {
+                banks.remove(trainingId);
+            }
+        }
+    }
+
+    /**
+     * The training's index, loaded if it is not in memory
+     */
+    private Bank bank(String trainingId) {
+        Bank bank = loadedBank(trainingId);
+        if (bank != null) {
+            return bank;
+        }
+
+        // Loaded outside the lock; a concurrent load of the same training is discarded
+        Bank loaded = new Bank();
+        List<ManualQuiz> quizzes = quizRepository.findByTrainingId(trainingId);
+        for (ManualQuiz quiz : quizzes) {
+            if (quiz.getQuestions() != null) {
+                quiz.getQuestions().forEach(question -> loaded.add(signature(question.getQuestion())));
+            }
+        }
+        log.debug("Indexed {} questions of training {}", loaded.size(), trainingId);
+        synchronized (banks) {
+            return banks.computeIfAbsent(trainingId, key -> loaded);
+        }
+    }
+
+    /**
+     * The training's index, or an empty one if it cannot be loaded: a failed load never blocks
+     * saving, duplicates among the new questions are still removed
+     */
+    private Bank bankOrEmpty(String trainingId) {
+        try {
+            return bank(trainingId);
+        } catch (RuntimeException e) {
+            log.warn("Could not load question index of training {}: {}", trainingId, e.getMessage());
+            return new Bank();
+        }
+    }
+
+    /**
+     * The training's index if it is in memory; one that is not is loaded whole when first needed
+     */
+    private Bank loadedBank(String trainingId) {
+        synchronized (banks) {
+            Bank bank = banks.get(trainingId);
+            if (bank != null && maxAgeMs > 0 && System.currentTimeMillis() - bank.loadedAt >= maxAgeMs) {
+                // May miss changes made through other instances
+                banks.remove(trainingId);
+                return null;
+            }
+            return bank;
+        }
+    }
+
+    /**
+     * MinHash of the word bigrams of the normalized text, or null if it has no words
+     */
+    static long[] signature(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        String[] words = normalized.split(" ");
+
+        long[] signature = new long[HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        int shingles = Math.max(1, words.length - 1);
+        for (int i = 0; i < shingles; i++) {
+            String shingle = words.length == 1 ? words[0] : words[i] + ' ' + words[i + 1];
+            long hash = mix(shingle.hashCode());
+            for (int h = 0; h < HASHES; h++) {
+                signature[h] = Math.min(signature[h], mix(hash ^ SEEDS[h]));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Share of equal signature values, an estimate of the Jaccard similarity of the shingle sets
+     */
+    static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int h = 0; h < HASHES; h++) {
+            if (a[h] == b[h]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 31 + signature[row];
+        }
+        return mix(key);
+    }
+
+    /** SplittableRandom's 64-bit finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Signatures of one training, bucketed per band */
+    static final class Bank {
+        private final long loadedAt = System.currentTimeMillis();
+        private final List<long[]> signatures = new ArrayList<>();
+        private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+        synchronized void add(long[] signature) {
+            if (signature == null) {
+                return;
+            }
+            int id = signatures.size();
+            signatures.add(signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bandKey(signature, band), key -> new ArrayList<>(1)).add(id);
+            }
+        }
+
+        synchronized boolean containsSimilar(long[] signature, double threshold) {
+            Set<Integer> compared = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                List<Integer> candidates = buckets.get(bandKey(signature, band));
+                if (candidates == null) {
+                    continue;
+                }
+                for (int id : candidates) {
+                    if (compared.add(id) && similarity(signature, signatures.get(id)) >= threshold) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        synchronized int size() {
+            return signatures.size();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.trainingplatform.application.services;
+
+import com.trainingplatform.core.entities.ManualTrainingModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Speculative quiz generation (app.ai.quiz-pregeneration, opt-in): when a module's content is
+ * edited, its default quiz is generated in the background into the AI response cache, so the
+ * trainer's later generate-quiz request for the same content returns at once, or joins the call
+ * still in flight.
+ *
+ * Generation starts once the module has not been edited for debounce-ms, at BACKGROUND priority
+ * for the editing company. A further edit cancels the pending or running draft of the previous
+ * content. Each company may spend up to daily-token-budget-per-company estimated tokens a day on
+ * drafts; edits beyond it are not pre-generated. The budget is tracked per instance.
+ */
+@Service
+@Slf4j
+public class QuizPregenerationService {
+
+    private final AIService aiService;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    @Value("${app.ai.quiz-pregeneration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ai.quiz-pregeneration.debounce-ms:20000}")
+    private long debounceMs;
+
+    @Value("${app.ai.quiz-pregeneration.daily-token-budget-per-company:200000}")
+    private long dailyTokenBudget;
+
+    private final Map<String, Draft> drafts = new ConcurrentHashMap<>();
+    private final Map<String, DailyUsage> usage = new ConcurrentHashMap<>();
+
+    private record DailyUsage(long day, long tokens) {
+    }
+
+    /** Draft of one module's content, waiting for its debounce or running */
+    private static final class Draft {
+        final AIService.QuizDraft request;
+        final String companyId;
+        volatile ScheduledFuture<?> timer;
+        volatile CompletableFuture<Map<String, Object>> generation;
+        volatile boolean cancelled;
+
+        Draft(AIService.QuizDraft request, String companyId) {
+            this.request = request;
+            this.companyId = companyId;
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (generation != null) {
+                generation.cancel(false);
+            }
+        }
+    }
+
+    public QuizPregenerationService(AIService aiService,
+                                    @Qualifier("quizPregenerationScheduler") ThreadPoolTaskScheduler scheduler) {
+        this.aiService = aiService;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Schedule the draft quiz of a module whose content was just saved, replacing the draft
+     * of its previous content. Never fails the save.
+     */
+    public void onModuleChanged(ManualTrainingModule module) {
+        if (!enabled || module.getId() == null) {
+            return;
+        }
+        try {
+            AIService.QuizDraft request = aiService.moduleQuizDraft(module);
+            String companyId = AICallContext.current().companyId();
+            drafts.compute(module.getId(), (moduleId, existing) -> {
+                if (existing != null && !existing.cancelled && existing.request.key().equals(request.key())) {
+                    // Same content, the draft already pending or running stays valid
+                    return existing;
+                }
+                if (existing != null) {
+                    log.debug("Module {} edited again, cancelling its previous quiz draft", moduleId);
+                    existing.cancel();
+                }
+                Draft draft = new Draft(request, companyId);
+                draft.timer = scheduler.schedule(() -> start(moduleId, draft),
+                    scheduler.getClock().instant().plus(Duration.ofMillis(debounceMs)));
+                return draft;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not schedule quiz draft for module {}: {}", module.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cancel the draft of a deleted module
+     */
+    public void onModuleDeleted(String moduleId) {
+        Draft draft = drafts.remove(moduleId);
+        if (draft != null) {
+            draft.cancel();
+        }
+    }
+
+    private void start(String moduleId, Draft draft) {
+        AICallContext.runWith(AICallContext.background(draft.companyId), () -> {
+            if (draft.cancelled) {
+                return;
+            }
+            if (!reserve(draft.companyId, draft.request.estimatedTokens())) {
+                log.info("Quiz draft budget of company {} used up for today, not pre-generating module {}",
+                    draft.companyId, moduleId);
+                drafts.remove(moduleId, draft);
+                return;
+            }
+
+            CompletableFuture<Map<String, Object>> generation = pregenerate(moduleId, draft);
+            if (generation == null) {
+                drafts.remove(moduleId, draft);
+                return;
+            }
+
+            draft.generation = generation;
+            if (draft.cancelled) {
+                // Edited again while the call was being started
+                generation.cancel(false);
+            }
+            log.info("Pre-generating quiz draft for module {} ({} tokens estimated)",
+                moduleId, draft.request.estimatedTokens());
+            generation.whenComplete((response, error) -> {
+                drafts.remove(moduleId, draft);
+                if (error == null) {
+                    log.info("Quiz draft for module {} is ready", moduleId);
+                } else if (!generation.isCancelled()) {
+                    log.warn("Quiz draft for module {} failed: {}", moduleId, error.getMessage());
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the running generation, or null if the draft is cached already or could not be started
+     */
+    private CompletableFuture<Map<String, Object>> pregenerate(String moduleId, Draft draft) {
+        try {
+            return aiService.pregenerateQuiz(draft.request);
+        } catch (RuntimeException e) {
+            log.warn("Could not start quiz draft for module {}: {}", moduleId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Take tokens from the company's budget for today
+     *
+     * @return false, taking nothing, if they are not left
+     */
+    private boolean reserve(String companyId, int tokens) {
+        long today = LocalDate.now().toEpochDay();
+        boolean[] granted = new boolean[1];
+        usage.compute(companyId, (key, current) -> {
+            long used = current != null && current.day() == today ? current.tokens() : 0;
+            granted[0] = used + tokens <= dailyTokenBudget;
+            return new DailyUsage(today, granted[0] ? used + tokens : used);
+        });
+        return granted[0];
+    }
+}
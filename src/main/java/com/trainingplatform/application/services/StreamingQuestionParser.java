@@ -0,0 +1,144 @@
+package com.trainingplatform.application.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser for a streamed quiz or exam completion.
+ *
+ * Text is fed chunk by chunk as it arrives. The parser tracks string and nesting state and,
+ * once it has entered the array under a "questions" key, captures each element object and
+ * hands it to the listener as soon as its closing brace is seen. Anything around the JSON
+ * (markdown fences, prose) is ignored.
+ */
+@Slf4j
+class StreamingQuestionParser {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<Map<String, Object>> onQuestion;
+
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private final StringBuilder currentString = new StringBuilder();
+    private String lastString;
+    private String currentKey;
+
+    /** Depth of the questions array once entered, -1 before */
+    private int questionsDepth = -1;
+    private final StringBuilder element = new StringBuilder();
+
+    StreamingQuestionParser(ObjectMapper objectMapper, Consumer<Map<String, Object>> onQuestion) {
+        this.objectMapper = objectMapper;
+        this.onQuestion = onQuestion;
+    }
+
+    void feed(String chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        boolean capturing = questionsDepth >= 0 && depth > questionsDepth;
+        if (capturing) {
+            element.append(c);
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                lastString = currentString.toString();
+            } else if (questionsDepth < 0) {
+                // Keys are only needed until the questions array is found
+                currentString.append(c);
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                currentString.setLength(0);
+            }
+            case ':' -> currentKey = lastString;
+            case '{' -> {
+                depth++;
+                if (questionsDepth >= 0 && depth == questionsDepth + 1) {
+                    element.setLength(0);
+                    element.append(c);
+                }
+            }
+            case '[' -> {
+                depth++;
+                if (questionsDepth < 0 && "questions".equals(currentKey)) {
+                    questionsDepth = depth;
+                }
+            }
+            case '}' -> {
+                if (questionsDepth >= 0 && depth == questionsDepth + 1) {
+                    emit();
+                }
+                depth--;
+            }
+            case ']' -> {
+                if (depth == questionsDepth) {
+                    // End of the questions array, anything after it is not a question
+                    questionsDepth = Integer.MAX_VALUE;
+                }
+                depth--;
+            }
+            case ',' -> currentKey = null;
+            default -> {
+            }
+        }
+    }
+
+    private void emit() {
+        Map<String, Object> question;
+        try {
+            question = objectMapper.readValue(element.toString(), MAP_TYPE);
+        } catch (Exception e) {
+            // The complete response is parsed again at the end, a malformed element is not fatal here
+            log.warn("Skipping unparseable streamed question: {}", e.getMessage());
+            return;
+        } finally {
+            element.setLength(0);
+        }
+        // Exceptions thrown by the listener propagate and abort the stream
+        onQuestion.accept(question);
+    }
+
+    /**
+     * Thrown by a listener to stop reading the stream, e.g. when the client went away
+     */
+    static class StreamAbortedException extends RuntimeException {
+        StreamAbortedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Questions of a complete quiz ({"questions": [...]}) or exam ({"exam": {"questions": [...]}}) response
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> questionsOf(Map<String, Object> response) {
+        Object exam = response.get("exam");
+        Object questions = exam instanceof Map<?, ?> examMap
+            ? examMap.get("questions")
+            : response.get("questions");
+        return questions instanceof List<?> list ? (List<Map<String, Object>>) list : List.of();
+    }
+}
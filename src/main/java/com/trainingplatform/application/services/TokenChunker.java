@@ -0,0 +1,113 @@
+package com.trainingplatform.application.services;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Counts tokens with the cl100k_base encoding and splits extracted document text into chunks
+ * of at most a given number of tokens.
+ *
+ * Splitting prefers the largest natural boundary that works: PDF pages, then slides, paragraphs,
+ * lines and sentences. Only a single sentence longer than the limit is cut mid-text.
+ */
+@Component
+public class TokenChunker {
+
+    /** Written by extractPdfText at the end of every page */
+    public static final String PAGE_BREAK = "\f";
+
+    private static final Pattern[] BOUNDARIES = {
+        Pattern.compile(PAGE_BREAK),
+        Pattern.compile("(?=\\n--- Slide \\d+ ---)"),
+        Pattern.compile("\\n\\s*\\n"),
+        Pattern.compile("\\n"),
+        Pattern.compile("(?<=[.!?])\\s+")
+    };
+
+    private final Encoding encoding = Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    public int countTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokens(text);
+    }
+
+    public List<String> split(String text, int maxTokens) {
+        List<String> chunks = new ArrayList<>();
+        split(text, maxTokens, 0, chunks);
+        return chunks;
+    }
+
+    /**
+     * Cut text to at most maxTokens tokens
+     */
+    public String truncate(String text, int maxTokens) {
+        List<Integer> tokens = encoding.encode(text);
+        return tokens.size() <= maxTokens ? text : encoding.decode(tokens.subList(0, maxTokens));
+    }
+
+    private void split(String text, int maxTokens, int level, List<String> chunks) {
+        if (text.isBlank()) {
+            return;
+        }
+        if (countTokens(text) <= maxTokens) {
+            chunks.add(text.strip());
+            return;
+        }
+        if (level == BOUNDARIES.length) {
+            hardSplit(text, maxTokens, chunks);
+            return;
+        }
+
+        String[] parts = BOUNDARIES[level].split(text);
+        if (parts.length == 1) {
+            split(text, maxTokens, level + 1, chunks);
+            return;
+        }
+
+        // Greedily pack consecutive parts, splitting further only the parts that are too large alone
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String part : parts) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int partTokens = countTokens(part);
+            if (partTokens > maxTokens) {
+                flush(current, chunks);
+                currentTokens = 0;
+                split(part, maxTokens, level + 1, chunks);
+                continue;
+            }
+            // +1 for the separator
+            if (currentTokens + partTokens + 1 > maxTokens) {
+                flush(current, chunks);
+                currentTokens = 0;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(part);
+            currentTokens += partTokens + 1;
+        }
+        flush(current, chunks);
+    }
+
+    private void hardSplit(String text, int maxTokens, List<String> chunks) {
+        List<Integer> tokens = encoding.encode(text);
+        for (int start = 0; start < tokens.size(); start += maxTokens) {
+            chunks.add(encoding.decode(tokens.subList(start, Math.min(start + maxTokens, tokens.size()))).strip());
+        }
+    }
+
+    private static void flush(StringBuilder current, List<String> chunks) {
+        if (!current.toString().isBlank()) {
+            chunks.add(current.toString().strip());
+        }
+        current.setLength(0);
+    }
+}
@@ -11,12 +11,17 @@ import com.trainingplatform.infrastructure.repositories.RepRepository;
 import java.util.Optional;
 import com.trainingplatform.presentation.dtos.TrainerDashboardDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 
 @Service
@@ -34,6 +39,15 @@ public class TrainingJourneyService {
     @Autowired
     private RepRepository repRepository;
     
+    @Autowired
+    private JourneyQuizStorageService quizStorageService;
+    
+    @Autowired
+    private JourneyEnrollmentService enrollmentService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     // TrainingModuleService no longer needed - modules are embedded in journey
     
     /**
@@ -41,15 +55,71 @@ public class TrainingJourneyService {
      * Ensures all modules, sections, quizzes, and questions have MongoDB ObjectIds
      */
     public TrainingJourneyEntity saveJourney(TrainingJourneyEntity journey) {
+        return saveJourney(journey, null);
+    }
+    
+    /**
+     * Create or update a training journey, only if it is still at expectedVersion
+     *
+     * @param expectedVersion version the client edited, or null to skip the check
+     * @throws OptimisticLockingFailureException if the journey changed since expectedVersion
+     */
+    public TrainingJourneyEntity saveJourney(TrainingJourneyEntity journey, Long expectedVersion) {
         // Ensure all ObjectIds are generated before saving
         ensureObjectIdsForJourney(journey);
+        if (journey.getId() != null) {
+            repairLegacyFields(journey.getId());
+        }
         
         if (journey.getId() == null) {
             journey.setCreatedAt(LocalDateTime.now());
         }
         journey.setUpdatedAt(LocalDateTime.now());
         
-        return journeyRepository.save(journey);
+        // Quiz bodies go to module_quizzes / exam_final_quizzes, the journey keeps references only
+        quizStorageService.externalizeQuizBodies(journey);
+        
+        return writeJourney(journey, expectedVersion);
+    }
+    
+    /**
+     * Whole-document write guarded by the stored version.
+     * The version carried by the entity (possibly sent by a client) is ignored: the replace only
+     * matches the journey at the version read here (or expectedVersion) and stores that version + 1,
+     * so a concurrent write in between fails instead of being overwritten.
+     */
+    private TrainingJourneyEntity writeJourney(TrainingJourneyEntity journey, Long expectedVersion) {
+        Query byId = Query.query(JourneyQuizStorageService.journeyIdCriteria(journey.getId()));
+        byId.fields().include("version");
+        Document stored = journey.getId() != null
+            ? mongoTemplate.findOne(byId, Document.class, mongoTemplate.getCollectionName(TrainingJourneyEntity.class))
+            : null;
+        
+        if (stored == null) {
+            if (expectedVersion != null && expectedVersion != 0) {
+                throw new OptimisticLockingFailureException(
+                    "Journey " + journey.getId() + " does not exist, expected version " + expectedVersion);
+            }
+            journey.setVersion(1L);
+            return journeyRepository.save(journey);
+        }
+        
+        // Journeys written before versioning have no version field and count as version 0
+        long currentVersion = stored.get("version") instanceof Number ? ((Number) stored.get("version")).longValue() : 0L;
+        if (expectedVersion != null && currentVersion != expectedVersion) {
+            throw new OptimisticLockingFailureException(
+                "Journey " + journey.getId() + " is at version " + currentVersion + ", expected " + expectedVersion);
+        }
+        
+        Query atVersion = Query.query(JourneyQuizStorageService.journeyIdCriteria(journey.getId()))
+            .addCriteria(currentVersion == 0
+                ? Criteria.where("version").in(0L, null)
+                : Criteria.where("version").is(currentVersion));
+        journey.setVersion(currentVersion + 1);
+        if (mongoTemplate.findAndReplace(atVersion, journey) == null) {
+            throw new OptimisticLockingFailureException("Journey " + journey.getId() + " was modified concurrently");
+        }
+        return journey;
     }
     
     /**
@@ -133,15 +203,31 @@ public class TrainingJourneyService {
      * Ensures all modules, sections, quizzes, and questions have MongoDB ObjectIds
      */
     public TrainingJourneyEntity launchJourney(TrainingJourneyEntity journey, List<String> enrolledRepIds) {
+        return launchJourney(journey, enrolledRepIds, false);
+    }
+    
+    /**
+     * Launch a training journey, optionally creating an empty RepProgress for every enrolled rep
+     * Enrollments are bulk-written to journey_enrollments, not stored in the journey document
+     */
+    public TrainingJourneyEntity launchJourney(TrainingJourneyEntity journey, List<String> enrolledRepIds, boolean createProgress) {
         // Ensure all ObjectIds are generated before launching
         ensureObjectIdsForJourney(journey);
+        if (journey.getId() != null) {
+            repairLegacyFields(journey.getId());
+        }
         
         journey.setStatus("active");
         journey.setEnrolledRepIds(enrolledRepIds);
         journey.setLaunchDate(LocalDateTime.now());
         journey.setUpdatedAt(LocalDateTime.now());
         
-        return journeyRepository.save(journey);
+        quizStorageService.externalizeQuizBodies(journey);
+        
+        TrainingJourneyEntity launched = writeJourney(journey, null);
+        enrollmentService.enrollReps(launched, enrolledRepIds, createProgress);
+        
+        return launched;
     }
     
     /**
@@ -151,6 +237,25 @@ public class TrainingJourneyService {
         return journeyRepository.findById(id);
     }
     
+    /**
+     * Get a journey that is about to be modified and saved whole.
+     * Fields moved out of the journey document that it still embeds are moved out first,
+     * as the whole-document save would drop them.
+     */
+    public Optional<TrainingJourneyEntity> getJourneyForUpdate(String id) {
+        repairLegacyFields(id);
+        return journeyRepository.findById(id);
+    }
+    
+    /**
+     * Move quiz bodies and enrollments still embedded in a journey written by an older version
+     * to their own collections; they are @Transient on the entity
+     */
+    private void repairLegacyFields(String journeyId) {
+        quizStorageService.migrateJourney(journeyId);
+        enrollmentService.migrateJourney(journeyId);
+    }
+    
     /**
      * Get all journeys
      */
@@ -176,7 +281,10 @@ public class TrainingJourneyService {
      * Get journeys for a specific rep
      */
     public List<TrainingJourneyEntity> getJourneysForRep(String repId) {
-        return journeyRepository.findByEnrolledRepIdsContaining(repId);
+        List<String> journeyIds = enrollmentService.getJourneyIds(repId);
+        List<TrainingJourneyEntity> journeys = new ArrayList<>();
+        journeyRepository.findAllById(journeyIds).forEach(journeys::add);
+        return journeys;
     }
     
     /**
@@ -199,18 +307,20 @@ public class TrainingJourneyService {
      */
     public void deleteJourney(String id) {
         journeyRepository.deleteById(id);
+        quizStorageService.deleteQuizBodies(id);
+        enrollmentService.deleteEnrollments(id);
     }
     
     /**
      * Archive a journey (soft delete)
      */
     public TrainingJourneyEntity archiveJourney(String id) {
-        Optional<TrainingJourneyEntity> journeyOpt = journeyRepository.findById(id);
+        Optional<TrainingJourneyEntity> journeyOpt = getJourneyForUpdate(id);
         if (journeyOpt.isPresent()) {
             TrainingJourneyEntity journey = journeyOpt.get();
             journey.setStatus("archived");
             journey.setUpdatedAt(LocalDateTime.now());
-            return journeyRepository.save(journey);
+            return writeJourney(journey, null);
         }
         return null;
     }
@@ -273,20 +383,15 @@ public class TrainingJourneyService {
         List<TrainingJourneyEntity> journeys = getJourneysByCompanyAndGig(companyId, gigId);
         System.out.println("[TrainerDashboard] Found " + journeys.size() + " journeys");
         
-        // Collect all unique enrolled rep IDs
-        Set<String> enrolledRepIds = new HashSet<>();
+        // Collect all unique enrolled rep IDs from journey_enrollments
+        List<String> journeyIds = new ArrayList<>();
         for (TrainingJourneyEntity journey : journeys) {
             System.out.println("[TrainerDashboard] Journey ID: " + journey.getId() + ", Title: " + journey.getTitle());
             System.out.println("[TrainerDashboard] Journey status: " + journey.getStatus());
             System.out.println("[TrainerDashboard] Journey companyId: " + journey.getCompanyId() + ", gigId: " + journey.getGigId());
-            
-            if (journey.getEnrolledRepIds() != null && !journey.getEnrolledRepIds().isEmpty()) {
-                System.out.println("[TrainerDashboard] EnrolledRepIds (" + journey.getEnrolledRepIds().size() + "): " + journey.getEnrolledRepIds());
-                enrolledRepIds.addAll(journey.getEnrolledRepIds());
-            } else {
-                System.out.println("[TrainerDashboard] ⚠️ Journey has no enrolledRepIds (null or empty)");
-            }
+            journeyIds.add(journey.getId());
         }
+        Set<String> enrolledRepIds = new HashSet<>(enrollmentService.getRepIds(journeyIds));
         
         System.out.println("[TrainerDashboard] Total unique enrolledRepIds collected: " + enrolledRepIds.size());
         
@@ -20,10 +20,8 @@ public class UrlContentExtractor {
     
     private final OkHttpClient httpClient;
     
-    public UrlContentExtractor() {
-        this.httpClient = new OkHttpClient.Builder()
-            .followRedirects(true)
-            .build();
+    public UrlContentExtractor(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
     }
     
     /**
@@ -0,0 +1,62 @@
+package com.trainingplatform.core.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A long-running AI pipeline (e.g. training organization) executed in the background.
+ * Clients poll GET /api/ai/jobs/{id} or subscribe to /api/ai/jobs/{id}/events.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ai_jobs")
+public class AIJob {
+    @Id
+    private String id;
+    
+    private String type; // organize-training
+    private String trainingId;
+    private String status; // queued, running, succeeded, failed
+    
+    private String currentStep;
+    private Integer progress; // 0-100
+    
+    @Builder.Default
+    private List<JobStep> steps = new ArrayList<>();
+    
+    private String error;
+    
+    private String ownerId; // Instance running the job
+    private LocalDateTime heartbeatAt; // Refreshed by the owner while the job is queued or running
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime updatedAt;
+    
+    public boolean isFinished() {
+        return "succeeded".equals(status) || "failed".equals(status);
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JobStep {
+        private String name;
+        private String status; // running, succeeded, failed
+        private String message;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.trainingplatform.core.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * A parsed OpenAI response, keyed by the SHA-256 of the request inputs (provider, operation and
+ * its configured models, temperature, max tokens, normalized prompt); model is the one that answered.
+ * Removed by MongoDB's TTL monitor once expiresAt has passed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ai_response_cache")
+public class AIResponseCacheEntry {
+    @Id
+    private String id;
+    
+    private String model;
+    private Integer maxTokens;
+    private Map<String, Object> response;
+    private Date createdAt;
+    
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private Date expiresAt;
+}
@@ -0,0 +1,38 @@
+package com.trainingplatform.core.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Normalized text extracted from an uploaded file, keyed by the SHA-256 of the file content.
+ * The Cloudinary publicIds the content was seen under are a secondary key. Entries written by
+ * another extractorVersion are ignored and extracted again.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "extracted_texts")
+public class ExtractedText {
+    @Id
+    private String id;
+    
+    @Indexed(name = "public_ids")
+    private List<String> publicIds;
+    
+    private String fileName;
+    private Long sizeBytes;
+    private String text;
+    // Character offsets in text where each PDF page or PPTX slide starts, empty for other formats
+    private List<Integer> pageOffsets;
+    private String extractorVersion;
+    private Date createdAt;
+}
@@ -0,0 +1,32 @@
+package com.trainingplatform.core.entities;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One rep enrolled in one training journey.
+ * Replaces the enrolledRepIds array that used to live inside the journey document.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "journey_enrollments")
+@CompoundIndex(name = "journey_rep", def = "{'journeyId': 1, 'repId': 1}", unique = true)
+@CompoundIndex(name = "rep_journey", def = "{'repId': 1, 'journeyId': 1}")
+public class JourneyEnrollment {
+    @Id
+    private String id;
+    
+    private String journeyId;
+    private String repId;
+    private LocalDateTime enrolledAt;
+    private String status; // enrolled, in-progress, completed
+}
@@ -1,6 +1,7 @@
 package com.trainingplatform.domain.entities;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -24,11 +25,13 @@ public class TrainingJourneyEntity {
     private TrainingVision vision;
     private List<TrainingModuleEntity> modules; // Embedded modules with sections and quizzes
     private FinalExamEntity finalExam; // Embedded final exam (0 or 1)
-    private List<String> enrolledRepIds;
+    @Transient
+    private List<String> enrolledRepIds; // Response only, enrollments are stored in journey_enrollments
     
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime launchDate;
+    private Long version; // Incremented on every write, checked by PATCH (If-Match)
     
     private LaunchSettings launchSettings;
     private RehearsalData rehearsalData;
@@ -147,6 +150,14 @@ public class TrainingJourneyEntity {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public LocalDateTime getLaunchDate() {
         return launchDate;
     }
@@ -414,16 +425,20 @@ public class TrainingJourneyEntity {
         public void setMimeType(String mimeType) { this.mimeType = mimeType; }
     }
     
-    // Embedded Quiz Entity (for module quizzes)
+    // Embedded Quiz reference (for module quizzes)
+    // Questions and settings are stored in module_quizzes under the same _id and loaded lazily
     public static class QuizEntity {
-        private String _id; // Auto-generated ObjectId
+        private String _id; // Auto-generated ObjectId, also the _id of the module_quizzes body
         private String title;
         private String description;
-        private List<QuizQuestion> questions = new java.util.ArrayList<>();
+        @Transient
+        private List<QuizQuestion> questions; // Body only, never persisted in the journey document
+        private Integer questionCount;
         private Integer passingScore; // percentage
         private Integer timeLimit; // in minutes, null for unlimited
         private Integer maxAttempts;
-        private QuizSettings settings;
+        @Transient
+        private QuizSettings settings; // Body only, never persisted in the journey document
         
         // Getters and Setters
         public String get_id() { return _id; }
@@ -434,6 +449,8 @@ public class TrainingJourneyEntity {
         public void setDescription(String description) { this.description = description; }
         public List<QuizQuestion> getQuestions() { return questions; }
         public void setQuestions(List<QuizQuestion> questions) { this.questions = questions; }
+        public Integer getQuestionCount() { return questionCount; }
+        public void setQuestionCount(Integer questionCount) { this.questionCount = questionCount; }
         public Integer getPassingScore() { return passingScore; }
         public void setPassingScore(Integer passingScore) { this.passingScore = passingScore; }
         public Integer getTimeLimit() { return timeLimit; }
@@ -444,16 +461,20 @@ public class TrainingJourneyEntity {
         public void setSettings(QuizSettings settings) { this.settings = settings; }
     }
     
-    // Final Exam Entity
+    // Final Exam reference
+    // Questions and settings are stored in exam_final_quizzes under the same _id and loaded lazily
     public static class FinalExamEntity {
-        private String _id; // Auto-generated ObjectId
+        private String _id; // Auto-generated ObjectId, also the _id of the exam_final_quizzes body
         private String title;
         private String description;
-        private List<QuizQuestion> questions = new java.util.ArrayList<>();
+        @Transient
+        private List<QuizQuestion> questions; // Body only, never persisted in the journey document
+        private Integer questionCount;
         private Integer passingScore; // percentage
         private Integer timeLimit; // in minutes, null for unlimited
         private Integer maxAttempts;
-        private QuizSettings settings;
+        @Transient
+        private QuizSettings settings; // Body only, never persisted in the journey document
         
         // Getters and Setters
         public String get_id() { return _id; }
@@ -464,6 +485,8 @@ public class TrainingJourneyEntity {
         public void setDescription(String description) { this.description = description; }
         public List<QuizQuestion> getQuestions() { return questions; }
         public void setQuestions(List<QuizQuestion> questions) { this.questions = questions; }
+        public Integer getQuestionCount() { return questionCount; }
+        public void setQuestionCount(Integer questionCount) { this.questionCount = questionCount; }
         public Integer getPassingScore() { return passingScore; }
         public void setPassingScore(Integer passingScore) { this.passingScore = passingScore; }
         public Integer getTimeLimit() { return timeLimit; }
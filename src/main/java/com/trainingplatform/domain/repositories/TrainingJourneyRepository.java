@@ -19,11 +19,6 @@ public interface TrainingJourneyRepository extends MongoRepository<TrainingJourn
      */
     List<TrainingJourneyEntity> findByIndustry(String industry);
     
-    /**
-     * Find journeys that contain a specific rep ID in enrolled reps
-     */
-    List<TrainingJourneyEntity> findByEnrolledRepIdsContaining(String repId);
-    
     /**
      * Find journeys by company ID
      */
@@ -0,0 +1,166 @@
+package com.trainingplatform.infrastructure.config;
+
+import com.trainingplatform.application.services.AICallContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Executors for background work, so long AI pipelines never run on Tomcat request threads
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Runs AI jobs (training organization). Bounded pool and queue: when both are full,
+     * submissions are rejected and the job is reported as failed instead of piling up.
+     */
+    @Bean(name = "aiJobExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor aiJobExecutor(
+            @Value("${app.ai.jobs.workers:2}") int workers,
+            @Value("${app.ai.jobs.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs individual quiz generation calls fanned out by AIService. Shared by all jobs, so the
+     * pool size bounds the number of concurrent OpenAI quiz calls across the application.
+     */
+    @Bean(name = "aiQuizExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor aiQuizExecutor(
+            @Value("${app.ai.quiz-generation.concurrency:4}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("ai-quiz-");
+        // Calls keep the company and priority of the request or job that fanned them out
+        executor.setTaskDecorator(AICallContext::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs streamed quiz and exam generations (AIStreamingService). Each one holds a thread for
+     * the whole generation, so they get their own pool instead of taking quiz generation threads.
+     * Bounded pool and queue: when both are full, new streams are refused with 503.
+     */
+    @Bean(name = "aiStreamingExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor aiStreamingExecutor(
+            @Value("${app.ai.streaming.concurrency:8}") int concurrency,
+            @Value("${app.ai.streaming.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-stream-");
+        executor.setTaskDecorator(AICallContext::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the upstream AI calls shared by coalesced callers (AIRequestCoalescer). Callers only
+     * wait here, the AI call scheduler does the throttling, so the pool is sized for waiting calls.
+     */
+    @Bean(name = "aiCallExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor aiCallExecutor(
+            @Value("${app.ai.single-flight.threads:32}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ai-call-");
+        // The call is scheduled with the company and priority of the caller that started it
+        executor.setTaskDecorator(AICallContext::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Downloads training files for content extraction (AIService), and condenses their text.
+     * Threads mostly wait on the network, so the pool is larger than the CPU count.
+     */
+    @Bean(name = "fileDownloadExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor fileDownloadExecutor(
+            @Value("${app.ai.content.download-threads:16}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("file-download-");
+        // Condensing calls the AI for the company of the request
+        executor.setTaskDecorator(AICallContext::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Parses downloaded files (PDFBox, POI). CPU-bound, so one thread per core.
+     */
+    @Bean(name = "fileParseExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor fileParseExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("file-parse-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fires the debounced quiz pre-generations of edited modules (QuizPregenerationService). Tasks
+     * only start the AI call, which runs on aiCallExecutor, so one thread is enough.
+     */
+    @Bean(name = "quizPregenerationScheduler", destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler quizPregenerationScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("quiz-pregen-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Refreshes the heartbeats of this instance's AI jobs and fails jobs whose owner stopped (AIJobService)
+     */
+    @Bean(name = "aiJobScheduler", destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler aiJobScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ai-job-heartbeat-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Runs the background probes of AIHealthMonitor
+     */
+    @Bean(name = "aiHealthScheduler", destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler aiHealthScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ai-health-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -50,9 +50,9 @@ public class CorsFilter implements Filter {
         response.setHeader("Access-Control-Allow-Headers", 
             "Origin, X-Requested-With, Content-Type, Accept, Authorization, " +
             "Access-Control-Request-Method, Access-Control-Request-Headers, " +
-            "X-Requested-With, Cache-Control, Pragma");
+            "X-Requested-With, Cache-Control, Pragma, If-Match, X-Company-Id");
         response.setHeader("Access-Control-Expose-Headers", 
-            "Authorization, Content-Type, X-Total-Count, Content-Length");
+            "Authorization, Content-Type, X-Total-Count, Content-Length, ETag");
 
         // ✅ Si c'est une requête OPTIONS (preflight), on répond immédiatement avec 200 OK
         if ("OPTIONS".equalsIgnoreCase(method)) {
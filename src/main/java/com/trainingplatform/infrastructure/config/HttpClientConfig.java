@@ -0,0 +1,53 @@
+package com.trainingplatform.infrastructure.config;
+
+import com.trainingplatform.infrastructure.http.HostTags;
+import com.trainingplatform.infrastructure.http.MetricsInterceptor;
+import com.trainingplatform.infrastructure.http.RetryInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client for outbound AI and content fetches (OpenAI, Cloudinary downloads, web pages).
+ * One connection pool for the whole application, HTTP/2 negotiated when the server supports it,
+ * and explicit timeouts so a hung upstream call cannot hold a thread indefinitely.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public OkHttpClient httpClient(
+            MeterRegistry registry,
+            @Value("${app.http.connect-timeout-ms:10000}") long connectTimeoutMs,
+            @Value("${app.http.read-timeout-ms:120000}") long readTimeoutMs,
+            @Value("${app.http.write-timeout-ms:30000}") long writeTimeoutMs,
+            @Value("${app.http.call-timeout-ms:300000}") long callTimeoutMs,
+            @Value("${app.http.pool.max-idle-connections:20}") int maxIdleConnections,
+            @Value("${app.http.pool.keep-alive-ms:300000}") long keepAliveMs,
+            @Value("${app.http.retry.max-retries:3}") int maxRetries,
+            @Value("${app.http.retry.initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${app.http.retry.max-backoff-ms:20000}") long maxBackoffMs,
+            @Value("${app.http.metrics.max-hosts:50}") int maxMetricHosts) {
+        HostTags hostTags = new HostTags(maxMetricHosts);
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .readTimeout(Duration.ofMillis(readTimeoutMs))
+            .writeTimeout(Duration.ofMillis(writeTimeoutMs))
+            // Covers the whole call, retries and backoff included
+            .callTimeout(Duration.ofMillis(callTimeoutMs))
+            .followRedirects(true)
+            .addInterceptor(new MetricsInterceptor(registry, hostTags))
+            .addInterceptor(new RetryInterceptor(maxRetries, initialBackoffMs, maxBackoffMs, registry, hostTags))
+            .build();
+    }
+}
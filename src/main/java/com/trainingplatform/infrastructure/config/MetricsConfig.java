@@ -0,0 +1,25 @@
+package com.trainingplatform.infrastructure.config;
+
+import com.trainingplatform.application.services.AITelemetry;
+import com.trainingplatform.application.services.AITelemetryProperties;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meter filters applied by Spring Boot to the application's meter registry.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Backstop for the companyId tag of the ai.* meters: AITelemetry already maps unknown and
+     * surplus companies to "other", beyond this many values further meters are not registered.
+     */
+    @Bean
+    public MeterFilter aiCompanyTagLimit(AITelemetryProperties properties) {
+        // The tagged companies plus "shared" and "other"
+        return MeterFilter.maximumAllowableTags("ai.", AITelemetry.COMPANY_TAG,
+            properties.getMaxTaggedCompanies() + 2, MeterFilter.deny());
+    }
+}
@@ -7,13 +7,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.ser.std.StringSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 /**
  * Configuration for MongoDB ObjectId serialization
@@ -23,8 +24,6 @@ import java.util.regex.Pattern;
 @Configuration
 public class MongoConfig {
 
-    private static final Pattern OBJECT_ID_PATTERN = Pattern.compile("^[0-9a-fA-F]{24}$");
-
     @Bean
     @Primary
     public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
@@ -41,51 +40,74 @@ public class MongoConfig {
     }
     
     /**
-     * Custom serializer that serializes MongoDB ObjectId strings as Extended JSON format
+     * Resolves the String serializer once per bean property (Jackson caches the result per property).
+     * Non-ID properties get Jackson's standard StringSerializer, ID properties get ObjectIdFieldSerializer.
      */
-    private static class ObjectIdStringSerializer extends JsonSerializer<String> implements ContextualSerializer {
+    static class ObjectIdStringSerializer extends StdSerializer<String> implements ContextualSerializer {
         
-        private String fieldName;
+        private static final JsonSerializer<Object> PLAIN = new StringSerializer();
+        private static final ObjectIdFieldSerializer ID_FIELD = new ObjectIdFieldSerializer();
         
-        public ObjectIdStringSerializer() {
-            this(null);
+        ObjectIdStringSerializer() {
+            super(String.class);
         }
         
-        public ObjectIdStringSerializer(String fieldName) {
-            this.fieldName = fieldName;
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) {
+            return property != null && isIdFieldName(property.getName()) ? ID_FIELD : PLAIN;
         }
         
         @Override
-        public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) {
-            String name = property != null ? property.getName() : null;
-            return new ObjectIdStringSerializer(name);
+        public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            // Only reached without a property context (root values, map values)
+            gen.writeString(value);
+        }
+    }
+    
+    /**
+     * Serializer for ID fields: writes {"$oid": "..."} when the value is a 24-char hex ObjectId
+     */
+    static class ObjectIdFieldSerializer extends StdSerializer<String> {
+        
+        ObjectIdFieldSerializer() {
+            super(String.class);
         }
         
         @Override
         public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
-            if (value == null) {
-                gen.writeNull();
-                return;
-            }
-            
-            // Check if this is an ID field and matches ObjectId pattern
-            boolean isIdField = fieldName != null && (
-                fieldName.equals("_id") || 
-                fieldName.equals("id") || 
-                fieldName.endsWith("Id") ||
-                fieldName.endsWith("Ids")
-            );
-            
-            if (isIdField && OBJECT_ID_PATTERN.matcher(value).matches()) {
+            if (isObjectIdHex(value)) {
                 // Serialize as Extended JSON format
                 gen.writeStartObject();
-                gen.writeFieldName("$oid");
-                gen.writeString(value);
+                gen.writeStringField("$oid", value);
                 gen.writeEndObject();
             } else {
-                // Regular string serialization
                 gen.writeString(value);
             }
         }
     }
+    
+    static boolean isIdFieldName(String fieldName) {
+        return fieldName != null && (
+            fieldName.equals("_id") ||
+            fieldName.equals("id") ||
+            fieldName.endsWith("Id") ||
+            fieldName.endsWith("Ids")
+        );
+    }
+    
+    /**
+     * Same check as ^[0-9a-fA-F]{24}$, without a regex Matcher
+     */
+    static boolean isObjectIdHex(String value) {
+        if (value.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < 24; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -13,7 +13,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH", "HEAD")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization", "Content-Type", "X-Total-Count", "Content-Length")
+                .exposedHeaders("Authorization", "Content-Type", "X-Total-Count", "Content-Length", "ETag")
                 .allowCredentials(false)
                 .maxAge(3600);
     }
@@ -0,0 +1,79 @@
+package com.trainingplatform.infrastructure.http;
+
+import okhttp3.Call;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A task whose cancellation also cancels the OkHttp calls its thread is blocked in.
+ *
+ * OkHttp's blocking execute() and body reads do not react to Thread.interrupt(), so cancelling
+ * a plain Future leaves its thread and connection waiting until the response ends. Calls
+ * registered with {@link #register} while a CancellableTask runs on the thread are cancelled
+ * along with it (cancel(true)), which makes the blocked read fail at once.
+ */
+public class CancellableTask<V> extends FutureTask<V> {
+
+    /**
+     * Registration of a call, closed once the call's response has been read
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<CancellableTask<?>> CURRENT = new ThreadLocal<>();
+
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+
+    public CancellableTask(Callable<V> callable) {
+        super(callable);
+    }
+
+    public CancellableTask(Runnable runnable) {
+        super(runnable, null);
+    }
+
+    @Override
+    public void run() {
+        CancellableTask<?> previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            super.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning) {
+            calls.forEach(Call::cancel);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel call along with the task running on this thread, if any, until the registration is closed
+     */
+    public static Registration register(Call call) {
+        CancellableTask<?> task = CURRENT.get();
+        if (task == null) {
+            return () -> { };
+        }
+        task.calls.add(call);
+        if (task.isCancelled()) {
+            // Cancelled before the call was registered
+            call.cancel();
+        }
+        return () -> task.calls.remove(call);
+    }
+}
@@ -0,0 +1,33 @@
+package com.trainingplatform.infrastructure.http;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Host tag values of the outbound HTTP meters. Page URLs come from users, so only the first
+ * maxHosts hosts called are tagged by name and the others share the tag "other".
+ */
+public class HostTags {
+
+    static final String OTHER = "other";
+
+    private final int maxHosts;
+    private final Set<String> hosts = ConcurrentHashMap.newKeySet();
+
+    public HostTags(int maxHosts) {
+        this.maxHosts = maxHosts;
+    }
+
+    public String of(String host) {
+        if (hosts.contains(host)) {
+            return host;
+        }
+        synchronized (hosts) {
+            if (hosts.size() < maxHosts) {
+                hosts.add(host);
+                return host;
+            }
+        }
+        return OTHER;
+    }
+}
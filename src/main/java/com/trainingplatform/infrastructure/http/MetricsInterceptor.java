@@ -0,0 +1,51 @@
+package com.trainingplatform.infrastructure.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outermost interceptor: one measurement per logical call, retries included, recorded in the
+ * http.outbound.calls timer tagged by host and outcome (success, or failure for a non-2xx
+ * status or I/O error after retries)
+ */
+public class MetricsInterceptor implements Interceptor {
+
+    public static final String CALLS = "http.outbound.calls";
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    private final MeterRegistry registry;
+    private final HostTags hostTags;
+
+    public MetricsInterceptor(MeterRegistry registry, HostTags hostTags) {
+        this.registry = registry;
+        this.hostTags = hostTags;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(chain.request());
+            record(host, response.isSuccessful() ? SUCCESS : FAILURE, start);
+            return response;
+        } catch (IOException e) {
+            record(host, FAILURE, start);
+            throw e;
+        }
+    }
+
+    private void record(String host, String outcome, long start) {
+        Timer.builder(CALLS)
+            .description("Outbound HTTP calls made through the shared OkHttpClient, retries included")
+            .tags("host", hostTags.of(host), "outcome", outcome)
+            .register(registry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
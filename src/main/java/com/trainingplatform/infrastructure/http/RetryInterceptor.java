@@ -0,0 +1,126 @@
+package com.trainingplatform.infrastructure.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries 429 and 5xx responses, and connections that could not be established, with
+ * exponential backoff and jitter. A Retry-After header takes precedence over the
+ * computed delay; when it asks for longer than maxBackoffMillis the response is returned as is.
+ *
+ * A request that reached the server and timed out is not retried, since a POST to an AI
+ * provider may already have been billed. Retries are counted in http.outbound.retries, by host.
+ */
+@Slf4j
+public class RetryInterceptor implements Interceptor {
+
+    public static final String RETRIES = "http.outbound.retries";
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final MeterRegistry registry;
+    private final HostTags hostTags;
+
+    public RetryInterceptor(int maxRetries, long initialBackoffMillis, long maxBackoffMillis,
+                            MeterRegistry registry, HostTags hostTags) {
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.registry = registry;
+        this.hostTags = hostTags;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (ConnectException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                long delay = backoffMillis(attempt);
+                log.warn("Could not connect to {} ({}), retrying in {} ms", host, e.getMessage(), delay);
+                pause(host, delay);
+                continue;
+            }
+
+            if (!isRetryable(response.code()) || attempt >= maxRetries) {
+                return response;
+            }
+
+            long delay = retryAfterMillis(response.header("Retry-After"));
+            if (delay > maxBackoffMillis) {
+                return response;
+            }
+            if (delay < 0) {
+                delay = backoffMillis(attempt);
+            }
+
+            log.warn("{} {} returned {}, retry {}/{} in {} ms", request.method(), host, response.code(),
+                attempt + 1, maxRetries, delay);
+            response.close();
+            pause(host, delay);
+        }
+    }
+
+    static boolean isRetryable(int code) {
+        return code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * @return the delay asked for by a Retry-After header (delta-seconds or HTTP date), or -1
+     */
+    static long retryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private void pause(String host, long delayMillis) throws InterruptedIOException {
+        Counter.builder(RETRIES)
+            .description("Outbound HTTP attempts retried by RetryInterceptor")
+            .tag("host", hostTags.of(host))
+            .register(registry)
+            .increment();
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry " + host);
+        }
+    }
+}
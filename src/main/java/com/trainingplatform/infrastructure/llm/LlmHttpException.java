@@ -0,0 +1,26 @@
+package com.trainingplatform.infrastructure.llm;
+
+/**
+ * The provider answered with an error status. The message is the status followed by the
+ * error body, which carries the provider's error code, e.g. context_length_exceeded.
+ */
+public class LlmHttpException extends RuntimeException {
+
+    private final int status;
+
+    public LlmHttpException(int status, String body) {
+        super(status + " " + body);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Whether the provider itself failed, as opposed to rejecting this request
+     */
+    public boolean isServerError() {
+        return status >= 500;
+    }
+}
@@ -0,0 +1,51 @@
+package com.trainingplatform.infrastructure.llm;
+
+import java.util.function.Consumer;
+
+/**
+ * Backend answering the chat completions of AIService.
+ *
+ * Exactly one implementation is active, selected with app.ai.provider: "openai" (default)
+ * or "mock" for load tests and CI runs that must not reach the real API.
+ */
+public interface LlmProvider {
+
+    /**
+     * The app.ai.provider value selecting this implementation. Part of response cache keys,
+     * so answers of one provider are never served while another is active.
+     */
+    String name();
+
+    /**
+     * Configured model name, used for requests without a model of their own
+     */
+    String model();
+
+    /**
+     * Whether calls can be made at all, e.g. an API key is set
+     */
+    boolean isConfigured();
+
+    /**
+     * Cheap request checking that the provider is reachable, without generating a completion
+     *
+     * @throws Exception if it is not, as complete would
+     */
+    void probe() throws Exception;
+
+    /**
+     * @return the message content of the completion and its token usage
+     * @throws LlmTruncatedException if the completion hit request.maxTokens()
+     * @throws Exception with the provider status and error body in its message on failure
+     */
+    LlmResponse complete(LlmRequest request) throws Exception;
+
+    /**
+     * Stream the completion, passing each content delta to onDelta as it arrives.
+     * Exceptions thrown by onDelta propagate and cancel the completion.
+     *
+     * @return the complete message content and its token usage
+     * @throws LlmTruncatedException if the completion hit request.maxTokens()
+     */
+    LlmResponse stream(LlmRequest request, Consumer<String> onDelta) throws Exception;
+}
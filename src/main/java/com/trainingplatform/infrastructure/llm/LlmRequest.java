@@ -0,0 +1,8 @@
+package com.trainingplatform.infrastructure.llm;
+
+/**
+ * One chat completion: the model, or null for the provider's configured one, a system and a
+ * user message, the sampling temperature and the maximum number of completion tokens
+ */
+public record LlmRequest(String model, String systemPrompt, String prompt, int maxTokens, double temperature) {
+}
@@ -0,0 +1,8 @@
+package com.trainingplatform.infrastructure.llm;
+
+/**
+ * A completed chat completion with the token usage reported for it, 0 when the provider
+ * reported none
+ */
+public record LlmResponse(String content, int promptTokens, int completionTokens) {
+}
@@ -0,0 +1,19 @@
+package com.trainingplatform.infrastructure.llm;
+
+/**
+ * The completion was cut off at max_tokens. Carries the content generated up to that point,
+ * which usually still holds complete questions or modules.
+ */
+public class LlmTruncatedException extends RuntimeException {
+
+    private final String partialContent;
+
+    public LlmTruncatedException(String partialContent) {
+        super("Response was truncated. The content is too long. Please reduce the number of questions or module content.");
+        this.partialContent = partialContent;
+    }
+
+    public String getPartialContent() {
+        return partialContent;
+    }
+}
@@ -0,0 +1,301 @@
+package com.trainingplatform.infrastructure.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the OpenAI API, for load tests and CI (app.ai.provider: mock).
+ *
+ * Responses are generated from the prompt alone, with a random source seeded by app.ai.mock.seed
+ * and the prompt, so the same prompt always gets the same modules, questions, batched quizzes or
+ * summary in the JSON shape the AIService prompts ask for. Timing follows the real API: a sampled
+ * time to first token, then decoding at a fixed tokens-per-second rate, so large exams take longer
+ * than short summaries. A configurable share of calls fails with an OpenAI-style error after the
+ * first-token delay. Timing and failures are drawn from one sequence seeded by app.ai.mock.seed.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "mock")
+public class MockLlmProvider implements LlmProvider {
+
+    private static final Pattern QUESTION_COUNT = Pattern.compile("(?:EXACTLY|EXAM:) (\\d+)");
+    private static final Pattern BATCH_MODULE = Pattern.compile(
+        "(?m)^=== MODULE (\\S+) ===$[\\s\\S]*?^Number of Questions: (\\d+)$");
+    private static final Pattern FILE_MARKER = Pattern.compile("(?m)^File \\d+: ");
+    private static final Pattern WORD = Pattern.compile("\\p{L}{5,}");
+    private static final List<String> FALLBACK_WORDS = List.of(
+        "training", "process", "customer", "quality", "practice", "service", "policy", "review");
+
+    /** Rough cl100k_base average for English text */
+    private static final int CHARS_PER_TOKEN = 4;
+    /** Tokens per streamed delta */
+    private static final int TOKENS_PER_DELTA = 4;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ai.mock.seed:42}")
+    private long seed;
+
+    @Value("${app.ai.mock.latency.distribution:lognormal}")
+    private String latencyDistribution;
+
+    @Value("${app.ai.mock.latency.median-ms:800}")
+    private long latencyMedianMs;
+
+    @Value("${app.ai.mock.latency.spread:0.5}")
+    private double latencySpread;
+
+    @Value("${app.ai.mock.tokens-per-second:80}")
+    private double tokensPerSecond;
+
+    @Value("${app.ai.mock.words-per-field:12}")
+    private int wordsPerField;
+
+    @Value("${app.ai.mock.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${app.ai.mock.failure-status:503}")
+    private int failureStatus;
+
+    private Random timing;
+
+    @PostConstruct
+    void init() {
+        if (!List.of("fixed", "uniform", "lognormal").contains(latencyDistribution)) {
+            throw new IllegalArgumentException("Unknown app.ai.mock.latency.distribution: " + latencyDistribution);
+        }
+        timing = new Random(seed);
+        log.warn("Mock LLM provider active, no OpenAI calls are made (latency {} {} ms, failure rate {})",
+            latencyDistribution, latencyMedianMs, failureRate);
+    }
+
+    @Override
+    public String name() {
+        return "mock";
+    }
+
+    @Override
+    public String model() {
+        return "mock";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    /**
+     * Always succeeds; injected failures only hit completions
+     */
+    @Override
+    public void probe() {
+    }
+
+    @Override
+    public LlmResponse complete(LlmRequest request) throws Exception {
+        String content = respond(request.prompt());
+        replay(request, content, null);
+        return usage(request, content);
+    }
+
+    @Override
+    public LlmResponse stream(LlmRequest request, Consumer<String> onDelta) throws Exception {
+        String content = respond(request.prompt());
+        replay(request, content, onDelta);
+        return usage(request, content);
+    }
+
+    private static LlmResponse usage(LlmRequest request, String content) {
+        int promptChars = request.systemPrompt().length() + request.prompt().length();
+        return new LlmResponse(content, promptChars / CHARS_PER_TOKEN, content.length() / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Spend the time the real API would, emitting deltas to onDelta if given, and fail or
+     * truncate the way it would
+     */
+    private void replay(LlmRequest request, String content, Consumer<String> onDelta) throws InterruptedException {
+        long firstTokenMs = sampleLatencyMs();
+        boolean fail = timing.nextDouble() < failureRate;
+        Thread.sleep(firstTokenMs);
+        if (fail) {
+            throw new LlmHttpException(failureStatus, "{\"error\":{\"message\":\"Injected mock failure\",\"type\":\"mock_error\"}}");
+        }
+
+        int deltaChars = TOKENS_PER_DELTA * CHARS_PER_TOKEN;
+        long deltaMillis = tokensPerSecond > 0 ? Math.round(TOKENS_PER_DELTA * 1000 / tokensPerSecond) : 0;
+        int tokens = 0;
+        for (int start = 0; start < content.length(); start += deltaChars) {
+            if (tokens >= request.maxTokens()) {
+                log.warn("Mock response was truncated due to max_tokens limit. Current limit: {}", request.maxTokens());
+                throw new LlmTruncatedException(content.substring(0, start));
+            }
+            Thread.sleep(deltaMillis);
+            tokens += TOKENS_PER_DELTA;
+            if (onDelta != null) {
+                onDelta.accept(content.substring(start, Math.min(start + deltaChars, content.length())));
+            }
+        }
+    }
+
+    private long sampleLatencyMs() {
+        double factor = switch (latencyDistribution) {
+            case "uniform" -> 1 + latencySpread * (2 * timing.nextDouble() - 1);
+            case "lognormal" -> Math.exp(latencySpread * timing.nextGaussian());
+            default -> 1;
+        };
+        return Math.max(0, Math.round(latencyMedianMs * factor));
+    }
+
+    /**
+     * JSON content for the kind of prompt, recognized by the response format it asks for
+     */
+    private String respond(String prompt) throws Exception {
+        Random random = new Random(seed ^ prompt.hashCode());
+        List<String> words = wordsOf(prompt);
+
+        Map<String, Object> response;
+        if (prompt.contains("{\"quizzes\":")) {
+            Map<String, Object> quizzes = new LinkedHashMap<>();
+            BATCH_MODULE.matcher(prompt).results().forEach(module -> quizzes.put(module.group(1),
+                questions(random, words, Integer.parseInt(module.group(2)), false).get("questions")));
+            response = Map.of("quizzes", quizzes);
+        } else if (prompt.contains("{\"modules\":")) {
+            response = modules(random, words, FILE_MARKER.matcher(prompt).results().count());
+        } else if (prompt.contains("\"questions\"")) {
+            Matcher count = QUESTION_COUNT.matcher(prompt);
+            int numberOfQuestions = count.find() ? Integer.parseInt(count.group(1)) : 10;
+            response = questions(random, words, numberOfQuestions, prompt.contains("EXAM:"));
+        } else if (prompt.contains("{\"summary\"")) {
+            response = Map.of("summary", sentence(random, words, wordsPerField * 4));
+        } else if (prompt.contains("\"keyTopics\"")) {
+            response = analysis(random, words);
+        } else if (prompt.contains("\"title\"")) {
+            response = new LinkedHashMap<>();
+            response.put("title", title(random, words, 5));
+            response.put("description", sentence(random, words, wordsPerField * 2));
+        } else {
+            response = Map.of("organization", sentence(random, words, wordsPerField * 3));
+        }
+        return objectMapper.writeValueAsString(response);
+    }
+
+    private Map<String, Object> modules(Random random, List<String> words, long files) {
+        List<Map<String, Object>> modules = new ArrayList<>();
+        // Up to three files per module, every file in exactly one section
+        for (int first = 0; first < Math.max(files, 1); first += 3) {
+            List<Map<String, Object>> sections = new ArrayList<>();
+            for (int fileIndex = first; fileIndex < Math.min(first + 3, Math.max(files, 1)); fileIndex++) {
+                Map<String, Object> section = new LinkedHashMap<>();
+                section.put("title", title(random, words, 4));
+                section.put("fileIndex", fileIndex);
+                section.put("description", sentence(random, words, wordsPerField));
+                sections.add(section);
+            }
+
+            Map<String, Object> module = new LinkedHashMap<>();
+            module.put("title", title(random, words, 4));
+            module.put("description", sentence(random, words, wordsPerField));
+            module.put("estimatedDuration", 30 + 10 * random.nextInt(7));
+            module.put("sections", sections);
+            modules.add(module);
+        }
+        return Map.of("modules", modules);
+    }
+
+    private Map<String, Object> questions(Random random, List<String> words, int numberOfQuestions, boolean exam) {
+        List<Map<String, Object>> questions = new ArrayList<>();
+        for (int i = 0; i < numberOfQuestions; i++) {
+            boolean trueFalse = i % 4 == 3;
+            Map<String, Object> question = new LinkedHashMap<>();
+            question.put("id", "q" + (i + 1));
+            question.put("question", sentence(random, words, wordsPerField).replaceFirst("\\.$", "?"));
+            question.put("type", trueFalse ? "true-false" : "multiple-choice");
+            if (trueFalse) {
+                question.put("options", List.of("True", "False"));
+                question.put("correctAnswer", random.nextInt(2));
+            } else {
+                List<String> options = new ArrayList<>();
+                for (int option = 0; option < 4; option++) {
+                    options.add(title(random, words, 3));
+                }
+                question.put("options", options);
+                question.put("correctAnswer", random.nextInt(4));
+            }
+            question.put("explanation", sentence(random, words, wordsPerField));
+            question.put("points", exam ? 2 : 1);
+            if (exam) {
+                question.put("moduleReference", "Module " + (1 + random.nextInt(3)));
+            }
+            questions.add(question);
+        }
+        return Map.of("questions", questions);
+    }
+
+    private Map<String, Object> analysis(Random random, List<String> words) {
+        Map<String, Object> analysis = new LinkedHashMap<>();
+        analysis.put("keyTopics", titles(random, words, 5, 2));
+        analysis.put("difficulty", 1 + random.nextInt(10));
+        analysis.put("estimatedReadTime", 5 + 5 * random.nextInt(12));
+        analysis.put("learningObjectives", titles(random, words, 4, 6));
+        analysis.put("prerequisites", titles(random, words, 2, 4));
+        analysis.put("suggestedModules", titles(random, words, 4, 3));
+        return analysis;
+    }
+
+    private static List<String> wordsOf(String prompt) {
+        Set<String> words = new LinkedHashSet<>();
+        WORD.matcher(prompt).results().forEach(match -> words.add(match.group().toLowerCase(Locale.ROOT)));
+        return words.isEmpty() ? FALLBACK_WORDS : new ArrayList<>(words);
+    }
+
+    private static String sentence(Random random, List<String> words, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            sentence.append(i == 0 ? capitalize(word) : " " + word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static String title(Random random, List<String> words, int length) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(capitalize(words.get(random.nextInt(words.size()))));
+        }
+        return title.toString();
+    }
+
+    private static List<String> titles(Random random, List<String> words, int count, int length) {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            titles.add(title(random, words, length));
+        }
+        return titles;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,203 @@
+package com.trainingplatform.infrastructure.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trainingplatform.infrastructure.http.CancellableTask;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI chat completions API, called through the shared OkHttpClient
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ai.provider", havingValue = "openai", matchIfMissing = true)
+public class OpenAiProvider implements LlmProvider {
+
+    private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    private static final String OPENAI_MODELS_URL = "https://api.openai.com/v1/models/";
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.get("application/json");
+
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.ai.openai.api-key:}")
+    private String openaiApiKey;
+
+    @Value("${app.ai.openai.model:gpt-4o-mini}")
+    private String openaiModel;
+
+    @Override
+    public String name() {
+        return "openai";
+    }
+
+    @Override
+    public String model() {
+        return openaiModel;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return openaiApiKey != null && !openaiApiKey.isEmpty();
+    }
+
+    /**
+     * Retrieves the configured model, which costs no tokens
+     */
+    @Override
+    public void probe() throws Exception {
+        if (!isConfigured()) {
+            throw new RuntimeException("OpenAI API key is not configured");
+        }
+        Request request = new Request.Builder()
+                .url(OPENAI_MODELS_URL + openaiModel)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey)
+                .get()
+                .build();
+        try (Response httpResponse = httpClient.newCall(request).execute()) {
+            if (!httpResponse.isSuccessful()) {
+                throw new LlmHttpException(httpResponse.code(), httpResponse.body() != null ? httpResponse.body().string() : "");
+            }
+        }
+    }
+
+    @Override
+    public LlmResponse complete(LlmRequest request) throws Exception {
+        JsonNode response;
+        Call call = httpClient.newCall(buildChatRequest(request, false));
+        try (CancellableTask.Registration cancellable = CancellableTask.register(call);
+             Response httpResponse = call.execute()) {
+            String responseBody = httpResponse.body() != null ? httpResponse.body().string() : "";
+            if (!httpResponse.isSuccessful()) {
+                // Error bodies carry the OpenAI error code, e.g. context_length_exceeded
+                throw new LlmHttpException(httpResponse.code(), responseBody);
+            }
+            if (responseBody.isEmpty()) {
+                throw new RuntimeException("OpenAI API returned null response");
+            }
+            response = objectMapper.readTree(responseBody);
+        }
+
+        JsonNode choice = response.path("choices").path(0);
+        if (choice.isMissingNode()) {
+            throw new RuntimeException("OpenAI API returned no choices");
+        }
+
+        // Check if response was truncated
+        if ("length".equals(choice.path("finish_reason").asText())) {
+            log.warn("OpenAI response was truncated due to max_tokens limit. Current limit: {}", request.maxTokens());
+            throw new LlmTruncatedException(choice.path("message").path("content").asText(""));
+        }
+
+        JsonNode usage = response.path("usage");
+        return new LlmResponse(choice.path("message").path("content").asText(""),
+            usage.path("prompt_tokens").asInt(0), usage.path("completion_tokens").asInt(0));
+    }
+
+    @Override
+    public LlmResponse stream(LlmRequest request, Consumer<String> onDelta) throws Exception {
+        StringBuilder content = new StringBuilder();
+        JsonNode usage = null;
+
+        Call call = httpClient.newCall(buildChatRequest(request, true));
+        try (CancellableTask.Registration cancellable = CancellableTask.register(call);
+             Response httpResponse = call.execute()) {
+            if (!httpResponse.isSuccessful()) {
+                String errorBody = httpResponse.body() != null ? httpResponse.body().string() : "";
+                throw new LlmHttpException(httpResponse.code(), errorBody);
+            }
+            if (httpResponse.body() == null) {
+                throw new RuntimeException("OpenAI API returned null response");
+            }
+
+            BufferedSource source = httpResponse.body().source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                // Server-sent events: "data: {chunk}" lines, terminated by "data: [DONE]"
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (data.equals("[DONE]")) {
+                    break;
+                }
+
+                JsonNode chunk = objectMapper.readTree(data);
+                if (chunk.path("usage").isObject()) {
+                    // Last chunk before [DONE], with no choices
+                    usage = chunk.path("usage");
+                }
+                JsonNode choice = chunk.path("choices").path(0);
+                String delta = choice.path("delta").path("content").asText("");
+                if (!delta.isEmpty()) {
+                    content.append(delta);
+                    // Closing the response when onDelta throws cancels the completion
+                    onDelta.accept(delta);
+                }
+                if ("length".equals(choice.path("finish_reason").asText())) {
+                    log.warn("OpenAI response was truncated due to max_tokens limit. Current limit: {}", request.maxTokens());
+                    throw new LlmTruncatedException(content.toString());
+                }
+            }
+        }
+        return new LlmResponse(content.toString(),
+            usage != null ? usage.path("prompt_tokens").asInt(0) : 0,
+            usage != null ? usage.path("completion_tokens").asInt(0) : 0);
+    }
+
+    private Request buildChatRequest(LlmRequest request, boolean stream) throws Exception {
+        if (!isConfigured()) {
+            throw new RuntimeException("OpenAI API key is not configured");
+        }
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", request.model() != null ? request.model() : openaiModel);
+        requestBody.put("temperature", request.temperature());
+        requestBody.put("max_tokens", request.maxTokens());
+
+        List<Map<String, String>> messages = new ArrayList<>();
+
+        // System message to set the AI's behavior
+        Map<String, String> systemMessage = new HashMap<>();
+        systemMessage.put("role", "system");
+        systemMessage.put("content", request.systemPrompt());
+        messages.add(systemMessage);
+
+        // User message with the actual prompt
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", request.prompt());
+        messages.add(userMessage);
+
+        requestBody.put("messages", messages);
+        if (stream) {
+            requestBody.put("stream", true);
+            requestBody.put("stream_options", Map.of("include_usage", true));
+        }
+
+        return new Request.Builder()
+                .url(OPENAI_API_URL)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey)
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(requestBody), JSON_MEDIA_TYPE))
+                .build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.trainingplatform.infrastructure.repositories;
+
+import com.trainingplatform.core.entities.AIJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AIJobRepository extends MongoRepository<AIJob, String> {
+    List<AIJob> findByTrainingIdOrderByCreatedAtDesc(String trainingId);
+}
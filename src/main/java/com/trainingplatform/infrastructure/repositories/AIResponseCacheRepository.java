@@ -0,0 +1,9 @@
+package com.trainingplatform.infrastructure.repositories;
+
+import com.trainingplatform.core.entities.AIResponseCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AIResponseCacheRepository extends MongoRepository<AIResponseCacheEntry, String> {
+}
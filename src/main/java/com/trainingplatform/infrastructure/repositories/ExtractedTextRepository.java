@@ -0,0 +1,13 @@
+package com.trainingplatform.infrastructure.repositories;
+
+import com.trainingplatform.core.entities.ExtractedText;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExtractedTextRepository extends MongoRepository<ExtractedText, String> {
+    // Matches any element of the publicIds array
+    Optional<ExtractedText> findFirstByPublicIds(String publicId);
+}
@@ -0,0 +1,21 @@
+package com.trainingplatform.infrastructure.repositories;
+
+import com.trainingplatform.core.entities.JourneyEnrollment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JourneyEnrollmentRepository extends MongoRepository<JourneyEnrollment, String> {
+    List<JourneyEnrollment> findByJourneyId(String journeyId);
+    
+    List<JourneyEnrollment> findByRepId(String repId);
+    
+    Optional<JourneyEnrollment> findByJourneyIdAndRepId(String journeyId, String repId);
+    
+    long countByJourneyId(String journeyId);
+    
+    void deleteByJourneyId(String journeyId);
+}
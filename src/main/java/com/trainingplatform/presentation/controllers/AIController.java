@@ -1,15 +1,31 @@
 package com.trainingplatform.presentation.controllers;
 
+import com.trainingplatform.application.services.AICallScheduler;
+import com.trainingplatform.application.services.AIHealthMonitor;
+import com.trainingplatform.application.services.AIJobService;
 import com.trainingplatform.application.services.AIService;
+import com.trainingplatform.application.services.AIStreamingService;
+import com.trainingplatform.application.services.AITelemetry;
+import com.trainingplatform.core.entities.AIJob;
+import com.trainingplatform.infrastructure.http.MetricsInterceptor;
+import com.trainingplatform.infrastructure.http.RetryInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -19,6 +35,12 @@ import java.util.Map;
 public class AIController {
     
     private final AIService aiService;
+    private final AIJobService aiJobService;
+    private final AIStreamingService aiStreamingService;
+    private final MeterRegistry meterRegistry;
+    private final AICallScheduler aiCallScheduler;
+    private final AITelemetry aiTelemetry;
+    private final AIHealthMonitor aiHealthMonitor;
     
     @GetMapping("/check-availability")
     public ResponseEntity<Map<String, Object>> checkAIAvailability() {
@@ -26,10 +48,14 @@ public class AIController {
         
         try {
             boolean available = aiService.checkAIAvailability();
+            Map<String, Object> health = aiHealthMonitor.snapshot();
             response.put("available", available);
             response.put("message", available ? 
                 "AI service is available" : 
-                "AI service is not available. Please configure OpenAI API key.");
+                Boolean.TRUE.equals(health.get("configured")) ?
+                    "AI service is temporarily unavailable. Please retry later." :
+                    "AI service is not available. Please configure OpenAI API key.");
+            response.put("health", health);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error checking AI availability: {}", e.getMessage());
@@ -55,7 +81,8 @@ public class AIController {
                     request.getCompanyName(),
                     request.getIndustry(),
                     request.getGig(),
-                    files
+                    files,
+                    request.isBypassCache()
             );
             
             response.put("success", true);
@@ -123,7 +150,8 @@ public class AIController {
             boolean generateModuleQuizzes = options != null ? options.getGenerateModuleQuizzes() : false;
             boolean generateFinalExam = options != null ? options.getGenerateFinalExam() : false;
             
-            aiService.organizeTrainingContent(
+            // Runs in the background, the client follows /jobs/{jobId} or /jobs/{jobId}/events
+            AIJob job = aiJobService.submitOrganizeTraining(
                 request.getTrainingId(), 
                 files,
                 request.getOrganizationInstructions(),
@@ -131,9 +159,17 @@ public class AIController {
                 generateFinalExam
             );
             
+            response.put("jobId", job.getId());
+            response.put("status", job.getStatus());
+            if ("failed".equals(job.getStatus())) {
+                response.put("success", false);
+                response.put("message", job.getError());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            
             response.put("success", true);
-            response.put("message", "Training content organized successfully");
-            return ResponseEntity.ok(response);
+            response.put("message", "Training content organization started");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
         } catch (Exception e) {
             log.error("Error organizing training content: {}", e.getMessage(), e);
             response.put("success", false);
@@ -142,11 +178,108 @@ public class AIController {
         }
     }
     
+    /**
+     * Poll the state of a background AI job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        
+        return aiJobService.getJob(jobId)
+            .map(job -> {
+                response.put("success", true);
+                response.put("data", job);
+                return ResponseEntity.ok(response);
+            })
+            .orElseGet(() -> {
+                response.put("success", false);
+                response.put("message", "Job not found: " + jobId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            });
+    }
+    
+    /**
+     * Stream the progress of a background AI job as server-sent events
+     * (event "progress" on every step, then "succeeded" or "failed")
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId) {
+        return aiJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(aiJobService.subscribe(job)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * List the AI jobs run for a training, most recent first
+     */
+    @GetMapping("/jobs/training/{trainingId}")
+    public ResponseEntity<Map<String, Object>> getJobsForTraining(@PathVariable String trainingId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", aiJobService.getJobsForTraining(trainingId));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Outbound HTTP call counters per target host (calls, failures, retries, latency), read from
+     * the http.outbound.calls and http.outbound.retries meters also under /actuator/metrics
+     */
+    @GetMapping("/http-metrics")
+    public ResponseEntity<Map<String, Object>> getHttpMetrics() {
+        Map<String, Map<String, Long>> hosts = new TreeMap<>();
+        meterRegistry.find(MetricsInterceptor.CALLS).timers().forEach(timer -> {
+            Map<String, Long> host = hosts.computeIfAbsent(timer.getId().getTag("host"), key -> new LinkedHashMap<>());
+            host.merge("calls", timer.count(), Long::sum);
+            host.merge("failures", MetricsInterceptor.FAILURE.equals(timer.getId().getTag("outcome")) ? timer.count() : 0L,
+                Long::sum);
+            host.merge("totalMillis", (long) timer.totalTime(TimeUnit.MILLISECONDS), Long::sum);
+            host.merge("maxMillis", (long) timer.max(TimeUnit.MILLISECONDS), Math::max);
+        });
+        meterRegistry.find(RetryInterceptor.RETRIES).counters().forEach(counter ->
+            hosts.computeIfAbsent(counter.getId().getTag("host"), key -> new LinkedHashMap<>())
+                .merge("retries", (long) counter.count(), Long::sum));
+        hosts.values().forEach(host -> {
+            long calls = host.getOrDefault("calls", 0L);
+            Long totalMillis = host.remove("totalMillis");
+            host.put("avgMillis", calls == 0 || totalMillis == null ? 0 : totalMillis / calls);
+            host.putIfAbsent("retries", 0L);
+        });
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", hosts);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * AI call scheduler state: queue depth, available rate limit capacity and wait times per priority class
+     */
+    @GetMapping("/rate-limit-metrics")
+    public ResponseEntity<Map<String, Object>> getRateLimitMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", aiCallScheduler.snapshot());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * AI call totals per operation and per company: calls by outcome, latency, tokens, cost and cache hits.
+     * Percentiles are under /actuator/metrics/ai.call.duration
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", aiTelemetry.snapshot());
+        return ResponseEntity.ok(response);
+    }
+    
     public static class GenerateMetadataRequest {
         private String companyName;
         private String industry;
         private String gig;
         private List<FileInfoRequest> files;
+        private boolean bypassCache;
 
         public String getCompanyName() { return companyName; }
         public void setCompanyName(String companyName) { this.companyName = companyName; }
@@ -159,6 +292,9 @@ public class AIController {
 
         public List<FileInfoRequest> getFiles() { return files; }
         public void setFiles(List<FileInfoRequest> files) { this.files = files; }
+
+        public boolean isBypassCache() { return bypassCache; }
+        public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
     }
 
     public static class OrganizeTrainingRequest {
@@ -265,7 +401,8 @@ public class AIController {
                     request.getNumberOfQuestions(),
                     request.getDifficulty(),
                     request.getQuestionTypes(),
-                    request.getQuestionDistribution()
+                    request.getQuestionDistribution(),
+                    request.isBypassCache()
             );
             
             // Verify number of questions returned
@@ -303,7 +440,8 @@ public class AIController {
             
             Map<String, Object> result = aiService.generateFinalExam(
                     request.getTrainingId(),
-                    request.getNumberOfQuestions()
+                    request.getNumberOfQuestions(),
+                    request.isBypassCache()
             );
             
             response.put("success", true);
@@ -317,6 +455,51 @@ public class AIController {
         }
     }
     
+    /**
+     * Streaming variant of /generate-quiz: server-sent "question" events as each question is
+     * generated, then "done" with the same data /generate-quiz returns (or "error").
+     * 503 when too many streams are in progress.
+     */
+    @PostMapping(value = "/generate-quiz/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamQuiz(@RequestBody GenerateQuizRequest request) {
+        log.info("Streaming quiz with {} questions for module", request.getNumberOfQuestions());
+        return startStream("quiz", onQuestion -> aiService.streamQuiz(
+                request.getModuleContent(),
+                request.getNumberOfQuestions(),
+                request.getDifficulty(),
+                request.getQuestionTypes(),
+                request.getQuestionDistribution(),
+                request.isBypassCache(),
+                onQuestion
+        ));
+    }
+    
+    /**
+     * Streaming variant of /generate-final-exam, same events as /generate-quiz/stream
+     */
+    @PostMapping(value = "/generate-final-exam/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamFinalExam(@RequestBody GenerateFinalExamRequest request) {
+        log.info("Streaming final exam with {} questions for training {}", 
+            request.getNumberOfQuestions(), request.getTrainingId());
+        return startStream("final exam", onQuestion -> aiService.streamFinalExam(
+                request.getTrainingId(),
+                request.getNumberOfQuestions(),
+                request.isBypassCache(),
+                onQuestion
+        ));
+    }
+    
+    private ResponseEntity<SseEmitter> startStream(String label, AIStreamingService.QuestionStream generation) {
+        try {
+            return ResponseEntity.ok(aiStreamingService.stream(label, generation));
+        } catch (TaskRejectedException e) {
+            // Too many generations in progress
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .build();
+        }
+    }
+    
     public static class GenerateQuizRequest {
         private Map<String, Object> moduleContent;
         private int numberOfQuestions;
@@ -325,6 +508,7 @@ public class AIController {
         private Map<String, Object> questionDistribution;
         private String moduleId;
         private String trainingId;
+        private boolean bypassCache;
 
         public Map<String, Object> getModuleContent() { return moduleContent; }
         public void setModuleContent(Map<String, Object> moduleContent) { this.moduleContent = moduleContent; }
@@ -346,30 +530,38 @@ public class AIController {
 
         public String getTrainingId() { return trainingId; }
         public void setTrainingId(String trainingId) { this.trainingId = trainingId; }
+
+        public boolean isBypassCache() { return bypassCache; }
+        public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
     }
     
     public static class GenerateFinalExamRequest {
         private String trainingId;
         private int numberOfQuestions;
+        private boolean bypassCache;
 
         public String getTrainingId() { return trainingId; }
         public void setTrainingId(String trainingId) { this.trainingId = trainingId; }
 
         public int getNumberOfQuestions() { return numberOfQuestions; }
         public void setNumberOfQuestions(int numberOfQuestions) { this.numberOfQuestions = numberOfQuestions; }
+
+        public boolean isBypassCache() { return bypassCache; }
+        public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
     }
     
     /**
      * Analyze a document with AI to extract key topics, learning objectives, etc.
      */
     @PostMapping("/analyze-document")
-    public ResponseEntity<Map<String, Object>> analyzeDocument(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> analyzeDocument(@RequestParam("file") MultipartFile file,
+                                                               @RequestParam(value = "bypassCache", defaultValue = "false") boolean bypassCache) {
         Map<String, Object> response = new HashMap<>();
         
         try {
             log.info("Analyzing document: {}", file.getOriginalFilename());
             
-            Map<String, Object> analysis = aiService.analyzeDocument(file);
+            Map<String, Object> analysis = aiService.analyzeDocument(file, bypassCache);
             
             response.put("success", true);
             response.put("analysis", analysis);
@@ -393,7 +585,7 @@ public class AIController {
             String url = request.get("url");
             log.info("Analyzing URL: {}", url);
             
-            Map<String, Object> analysis = aiService.analyzeUrl(url);
+            Map<String, Object> analysis = aiService.analyzeUrl(url, Boolean.parseBoolean(request.get("bypassCache")));
             
             response.put("success", true);
             response.put("analysis", analysis);
@@ -3,6 +3,9 @@ package com.trainingplatform.presentation.controllers;
 import com.trainingplatform.application.services.TrainingJourneyService;
 import com.trainingplatform.application.services.ModuleQuizService;
 import com.trainingplatform.application.services.ExamFinalQuizService;
+import com.trainingplatform.application.services.JourneyQuizStorageService;
+import com.trainingplatform.application.services.JourneyPatchService;
+import com.trainingplatform.application.services.JourneyEnrollmentService;
 import com.trainingplatform.core.entities.ModuleQuiz;
 import com.trainingplatform.core.entities.ExamFinalQuiz;
 import com.trainingplatform.domain.entities.TrainingJourneyEntity;
@@ -14,6 +17,7 @@ import com.trainingplatform.infrastructure.repositories.RepProgressRepository;
 import com.trainingplatform.core.entities.RepProgress;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -49,6 +53,15 @@ public class JourneyController {
     @Autowired
     private ExamFinalQuizService examFinalQuizService;
     
+    @Autowired
+    private JourneyQuizStorageService quizStorageService;
+    
+    @Autowired
+    private JourneyPatchService journeyPatchService;
+    
+    @Autowired
+    private JourneyEnrollmentService enrollmentService;
+    
     @Autowired
     private RepProgressRepository repProgressRepository;
     
@@ -594,6 +607,7 @@ public class JourneyController {
             // Extract journey data
             Map<String, Object> journeyData = (Map<String, Object>) request.get("journey");
             List<String> enrolledRepIds = (List<String>) request.get("enrolledRepIds");
+            boolean createProgress = Boolean.TRUE.equals(request.get("createProgress"));
             
             System.out.println("[JourneyController] Launch journey - journeyData keys: " + journeyData.keySet());
             System.out.println("[JourneyController] Launch journey - title: " + journeyData.get("title"));
@@ -615,7 +629,7 @@ public class JourneyController {
             
             if (journeyId != null && !journeyId.isEmpty()) {
                 // Try to get existing journey
-                Optional<TrainingJourneyEntity> existingJourneyOpt = journeyService.getJourneyById(journeyId);
+                Optional<TrainingJourneyEntity> existingJourneyOpt = journeyService.getJourneyForUpdate(journeyId);
                 if (existingJourneyOpt.isPresent()) {
                     journey = existingJourneyOpt.get();
                     isUpdate = true;
@@ -686,7 +700,7 @@ public class JourneyController {
             System.out.println("[JourneyController] Is update: " + isUpdate);
             
             // Launch the journey
-            TrainingJourneyEntity launchedJourney = journeyService.launchJourney(journey, enrolledRepIds);
+            TrainingJourneyEntity launchedJourney = journeyService.launchJourney(journey, enrolledRepIds, createProgress);
             
             System.out.println("[JourneyController] After launch - title: " + launchedJourney.getTitle());
             System.out.println("[JourneyController] After launch - industry: " + launchedJourney.getIndustry());
@@ -710,24 +724,91 @@ public class JourneyController {
     
     /**
      * PUT /journeys/{id}
-     * Update an existing journey
+     * Update an existing journey.
+     * The version in the body is ignored; send the version the edit is based on in If-Match
+     * to reject concurrent edits with 409.
      */
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateJourney(
         @PathVariable String id, 
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
         @RequestBody TrainingJourneyEntity journey
     ) {
         try {
+            Long expectedVersion = ifMatch != null ? Long.parseLong(ifMatch.replace("W/", "").replace("\"", "").trim()) : null;
+            
             journey.setId(id);
-            TrainingJourneyEntity updatedJourney = journeyService.saveJourney(journey);
+            TrainingJourneyEntity updatedJourney = journeyService.saveJourney(journey, expectedVersion);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("journey", updatedJourney);
             response.put("message", "Journey updated successfully");
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                .eTag(String.valueOf(updatedJourney.getVersion()))
+                .body(response);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (NumberFormatException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Invalid If-Match version: " + ifMatch);
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    /**
+     * PATCH /journeys/{id}
+     * Apply JSON Patch operations (RFC 6902) to the modules, sections and quizzes of a journey.
+     * Send the version the edit is based on in If-Match to reject concurrent edits with 409.
+     */
+    @PatchMapping(value = "/{id}", consumes = {"application/json-patch+json", "application/json"})
+    public ResponseEntity<Map<String, Object>> patchJourney(
+        @PathVariable String id,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestBody List<Map<String, Object>> operations
+    ) {
+        try {
+            Long expectedVersion = ifMatch != null ? Long.parseLong(ifMatch.replace("W/", "").replace("\"", "").trim()) : null;
+            
+            Optional<TrainingJourneyEntity> patched = journeyPatchService.applyPatch(id, operations, expectedVersion);
+            if (patched.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Journey not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("journey", patched.get());
+            response.put("message", "Journey updated successfully");
+            
+            return ResponseEntity.ok()
+                .eTag(String.valueOf(patched.get().getVersion()))
+                .body(response);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from a malformed If-Match
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
+            System.err.println("[JourneyController] Error patching journey: " + e.getMessage());
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("error", e.getMessage());
@@ -2126,6 +2207,108 @@ public class JourneyController {
         }
     }
     
+    /**
+     * GET /training_journeys/{journeyId}/modules/{moduleId}/quizzes/{quizId}
+     * Load the body (questions, answers, settings) of a quiz referenced by a journey module
+     */
+    @GetMapping("/{journeyId}/modules/{moduleId}/quizzes/{quizId}")
+    public ResponseEntity<Map<String, Object>> getJourneyQuizBody(
+            @PathVariable String journeyId,
+            @PathVariable String moduleId,
+            @PathVariable String quizId) {
+        try {
+            Optional<ModuleQuiz> quiz = quizStorageService.getModuleQuizBody(journeyId, moduleId, quizId);
+            
+            if (quiz.isPresent()) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("data", quiz.get());
+                return ResponseEntity.ok(response);
+            } else {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Quiz not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+            }
+        } catch (Exception e) {
+            System.err.println("[JourneyController] Error getting journey quiz: " + e.getMessage());
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    /**
+     * POST /training_journeys/migrations/externalize-quizzes
+     * Move quiz and final exam bodies still embedded in journey documents to their own collections
+     */
+    @PostMapping("/migrations/externalize-quizzes")
+    public ResponseEntity<Map<String, Object>> externalizeQuizBodies() {
+        try {
+            int migrated = quizStorageService.migrateEmbeddedQuizBodies();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("migratedJourneys", migrated);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.err.println("[JourneyController] Error migrating quiz bodies: " + e.getMessage());
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    /**
+     * POST /training_journeys/migrations/enrollments
+     * Move enrolledRepIds arrays still stored in journey documents to journey_enrollments
+     */
+    @PostMapping("/migrations/enrollments")
+    public ResponseEntity<Map<String, Object>> migrateEnrollments() {
+        try {
+            int migrated = enrollmentService.migrateEmbeddedEnrollments();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("migratedJourneys", migrated);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.err.println("[JourneyController] Error migrating enrollments: " + e.getMessage());
+            e.printStackTrace();
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
+    /**
+     * GET /training_journeys/{journeyId}/enrollments
+     * Get the rep IDs enrolled in a journey
+     */
+    @GetMapping("/{journeyId}/enrollments")
+    public ResponseEntity<Map<String, Object>> getJourneyEnrollments(@PathVariable String journeyId) {
+        try {
+            List<String> repIds = enrollmentService.getRepIds(journeyId);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", repIds);
+            response.put("count", repIds.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.err.println("[JourneyController] Error getting enrollments: " + e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+    
     /**
      * POST /training_journeys/{trainingId}/final-exam
      * Create a final exam quiz in exam_final_quizzes collection
@@ -2164,7 +2347,10 @@ public class JourneyController {
     @GetMapping("/{trainingId}/final-exam")
     public ResponseEntity<Map<String, Object>> getFinalExam(@PathVariable String trainingId) {
         try {
-            ExamFinalQuiz exam = examFinalQuizService.getFinalExamByTraining(trainingId);
+            // Prefer the exam referenced by the journey, fall back to the first exam stored for the training
+            ExamFinalQuiz exam = journeyService.getJourneyById(trainingId)
+                .flatMap(quizStorageService::getFinalExamBody)
+                .orElseGet(() -> examFinalQuizService.getFinalExamByTraining(trainingId));
             
             if (exam != null) {
                 Map<String, Object> response = new HashMap<>();
@@ -300,7 +300,8 @@ public class ManualQuizController {
                     request.getNumberOfQuestions(),
                     request.getDifficulty(),
                     request.getQuestionTypes(),
-                    null // No question distribution for manual quiz generation
+                    null, // No question distribution for manual quiz generation
+                    request.isBypassCache()
             );
             
             response.put("success", true);
@@ -373,7 +374,8 @@ public class ManualQuizController {
             
             Map<String, Object> result = aiService.generateFinalExam(
                     request.getTrainingId(),
-                    request.getNumberOfQuestions()
+                    request.getNumberOfQuestions(),
+                    request.isBypassCache()
             );
             
             response.put("success", true);
@@ -395,6 +397,7 @@ public class ManualQuizController {
         private Map<String, Boolean> questionTypes;
         private String moduleId;
         private String trainingId;
+        private boolean bypassCache;
 
         public Map<String, Object> getModuleContent() { return moduleContent; }
         public void setModuleContent(Map<String, Object> moduleContent) { this.moduleContent = moduleContent; }
@@ -413,17 +416,24 @@ public class ManualQuizController {
 
         public String getTrainingId() { return trainingId; }
         public void setTrainingId(String trainingId) { this.trainingId = trainingId; }
+
+        public boolean isBypassCache() { return bypassCache; }
+        public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
     }
     
     public static class GenerateFinalExamRequest {
         private String trainingId;
         private int numberOfQuestions;
+        private boolean bypassCache;
 
         public String getTrainingId() { return trainingId; }
         public void setTrainingId(String trainingId) { this.trainingId = trainingId; }
 
         public int getNumberOfQuestions() { return numberOfQuestions; }
         public void setNumberOfQuestions(int numberOfQuestions) { this.numberOfQuestions = numberOfQuestions; }
+
+        public boolean isBypassCache() { return bypassCache; }
+        public void setBypassCache(boolean bypassCache) { this.bypassCache = bypassCache; }
     }
     
     /**